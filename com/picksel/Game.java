@@ -1,14 +1,20 @@
 package com.picksel;
 
 import java.awt.*;
-import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.function.Consumer;
+import javax.imageio.ImageIO;
 import javax.swing.JFrame;
 
 import com.picksel.renderer.*;
 import com.picksel.scene.SceneManager;
+import com.picksel.util.AllocationMonitor;
 import com.picksel.util.Camera;
 import com.picksel.util.VersionInfo;
 import com.picksel.util.Input;
+import com.picksel.util.exception.AssetException;
 
 /**
  * The base of all Picksel games. This class defines the
@@ -29,21 +35,27 @@ public abstract class Game implements Runnable {
 	private String title;
 	private int rX, rY;
 	private float scale;
+	private final boolean headless;
 
 	//Game window information
 	private JFrame frame;
 	private Canvas canvas;
-	private BufferStrategy strategy;
+	private Presenter presenter;
 
 	//Game thread information
 	private Thread thread;
 	private long startTime = -1L;
 	private long frameTime;
-	private boolean running = false;
+	private volatile boolean running = false;
+	private volatile boolean realTime = true;
 
 	//Game utility information
 	private Renderer renderer;
 	private Input in;
+	private final Consumer<BufferedImage> offscreen = this::presentOffscreen;
+	private File dumpDir;
+	private int dumped;
+	private AllocationMonitor allocations;
 
 	/**
 	 * Creates a new Picksel Game with the passed general information.
@@ -55,21 +67,39 @@ public abstract class Game implements Runnable {
 	 * @param fps			The target amount of frames per second
 	 */
 	public Game(String title, int rX, int rY, float scale, int fps) {
+		this(title, rX, rY, scale, fps, false);
+	}
+
+	/**
+	 * Creates a new Picksel Game with the passed general information.
+	 * A headless Game opens no window, and draws every frame into
+	 * its off-screen {@link Renderer}. Frames can be saved with
+	 * {@link #setFrameDump(File)}.
+	 *
+	 * @param title		Title displayed on game window
+	 * @param rX			The amount of horizontal pixels per vertical pixel
+	 * @param rY			The amount of vertical pixels per horizontal pixel
+	 * @param scale		The size of each pixel
+	 * @param fps			The target amount of frames per second
+	 * @param headless	Whether this Game runs without a window
+	 */
+	public Game(String title, int rX, int rY, float scale, int fps, boolean headless) {
 		this.title = title;
 		this.rX = rX;
 		this.rY = rY;
 		this.scale = scale;
+		this.headless = headless;
 		frameTime = (long) (1E9 / fps);
 
 		Camera.init((int) (rX * scale), (int) (rY * scale));
 		renderer = new Renderer(rX, rY, scale);
 		in = new Input(scale);
 
-		initWindow();
+		if(!headless) initWindow();
 		initGame();
 
 		if(SceneManager.getActiveScene() == null) {
-			frame.dispose();
+			if(frame != null) frame.dispose();
 			throw new RuntimeException("No active Scene set.");
 		}
 	}
@@ -92,8 +122,8 @@ public abstract class Game implements Runnable {
 		frame.add(canvas);
 		frame.pack();
 
-		canvas.createBufferStrategy(3);
-		strategy = canvas.getBufferStrategy();
+		presenter = new Presenter(canvas, renderer, 3);
+		in.setView(presenter.getXOffset(), presenter.getYOffset(), presenter.getScale());
 
 		frame.setLocationRelativeTo(null);
 		frame.setResizable(false);
@@ -107,21 +137,61 @@ public abstract class Game implements Runnable {
 	protected abstract void initGame();
 
 	private void update(float dt) {
+		AllocationMonitor monitor = allocations;
+		if(monitor != null) monitor.begin(AllocationMonitor.UPDATE);
+
 		SceneManager.getActiveScene().update(dt, in);
 		in.update();
+
+		if(monitor != null) monitor.end(AllocationMonitor.UPDATE);
 	}
 
 	private void render() {
-		Graphics g = strategy.getDrawGraphics();
+		AllocationMonitor monitor = allocations;
+		if(monitor != null) monitor.begin(AllocationMonitor.RENDER);
 
-		g.clearRect(0, 0, (int) (rX * scale), (int) (rY * scale));
 		renderer.clear();
 
+		if(presenter != null) {
+			presenter.checkContents();
+			in.setView(presenter.getXOffset(), presenter.getYOffset(), presenter.getScale());
+		}
+
 		SceneManager.getActiveScene().render(renderer);
-		g.drawImage(renderer.asImage(), 0, 0, (int) (rX * scale), (int) (rY * scale), null);
+		renderer.endFrame(headless ? offscreen : presenter);
+
+		if(monitor != null) monitor.end(AllocationMonitor.RENDER);
+	}
 
-		g.dispose();
-		strategy.show();
+	private void presentOffscreen(BufferedImage image) {
+		if(dumpDir == null) return;
+
+		File file = new File(dumpDir, String.format("frame_%05d.png", dumped++));
+
+		try {
+			ImageIO.write(image, "png", file);
+		} catch(IOException e) {
+			throw new AssetException("Could not write frame: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Runs the passed amount of frames on the calling Thread,
+	 * as fast as possible. Every frame is updated with the
+	 * fixed frame time, so runs are repeatable. Useful for
+	 * benchmarks, tests and server-side simulation.
+	 *
+	 * @param frames Amount of frames to run
+	 */
+	public void runFrames(int frames) {
+		float dt = frameTime / 1E9f;
+
+		for(int i = 0; i < frames; i++) {
+			update(dt);
+			render();
+		}
+
+		renderer.flush();
 	}
 
 	/**
@@ -141,6 +211,8 @@ public abstract class Game implements Runnable {
 	public synchronized void stop() {
 		running = false;
 
+		if(thread == null || thread == Thread.currentThread()) return;
+
 		try {
 			thread.join();
 		} catch(InterruptedException e) {
@@ -159,6 +231,88 @@ public abstract class Game implements Runnable {
 		return startTime;
 	}
 
+	/**
+	 * Gets the Renderer this Game draws to. Use it to change
+	 * render settings, such as
+	 * {@link com.picksel.renderer.Renderer#setParallel(boolean)} or
+	 * {@link com.picksel.renderer.Renderer#setPipelined(boolean)}.
+	 *
+	 * @return Game Renderer
+	 */
+	public Renderer getRenderer() {
+		return renderer;
+	}
+
+	/**
+	 * Tests if this Game runs without a window.
+	 *
+	 * @return {@code True} if this Game is headless,
+	 * {@code false} otherwise.
+	 */
+	public boolean isHeadless() {
+		return headless;
+	}
+
+	/**
+	 * Sets whether this Game's Thread waits for real time to
+	 * pass between frames. When disabled, frames run back to
+	 * back and every update uses the fixed frame time, so the
+	 * game runs faster than real time.
+	 *
+	 * @param realTime New real time state
+	 */
+	public void setRealTime(boolean realTime) {
+		this.realTime = realTime;
+	}
+
+	/**
+	 * Tests if this Game's Thread runs in real time.
+	 *
+	 * @return {@code True} if frames wait for real time,
+	 * {@code false} otherwise.
+	 */
+	public boolean isRealTime() {
+		return realTime;
+	}
+
+	/**
+	 * Sets the directory a headless Game saves each presented
+	 * frame to as a numbered PNG file. Windowed Games ignore
+	 * this setting.
+	 *
+	 * @param dir Directory frames are saved to, or {@code null}
+	 * to stop saving frames
+	 */
+	public void setFrameDump(File dir) {
+		renderer.flush();
+
+		dumpDir = dir;
+		dumped = 0;
+	}
+
+	/**
+	 * Sets the AllocationMonitor which measures each frame's
+	 * update and render phases on the game Thread.
+	 *
+	 * @param monitor New AllocationMonitor, or {@code null} to
+	 * stop measuring
+	 */
+	public void setAllocationMonitor(AllocationMonitor monitor) {
+		allocations = monitor;
+	}
+
+	/**
+	 * Gets the Presenter which shows this Game's frames. Use it
+	 * to read the measured present cost, such as
+	 * {@link com.picksel.renderer.Presenter#getAveragePresentTime()}.
+	 *
+	 * @return Game Presenter, or {@code null} if this Game is
+	 * headless
+	 */
+	public Presenter getPresenter() {
+		return presenter;
+	}
+
 	/**
 	 * Gets the width of the window in pixels.
 	 *
@@ -186,7 +340,12 @@ public abstract class Game implements Runnable {
 			now = System.nanoTime();
 			delta += now - last;
 
-			if(delta >= frameTime) {
+			if(!realTime) {
+				update(frameTime / 1E9f);
+				render();
+				delta = 0;
+				frames++;
+			} else if(delta >= frameTime) {
 				update(delta / 1E9f);
 				render();
 				delta -= frameTime;
@@ -194,12 +353,12 @@ public abstract class Game implements Runnable {
 			}
 
 			if(now - start >= 1E9) {
-				frame.setTitle(title + " | " + frames);
+				if(frame != null) frame.setTitle(title + " | " + frames);
 				frames = 0;
 				start = now;
 			}
 		}
 
-		stop();
+		renderer.flush();
 	}
 }
\ No newline at end of file
@@ -77,11 +77,26 @@ public class Asset {
 	 * @param file File this Asset uses
 	 */
 	protected Asset(File file) {
+		this(file, true);
+	}
+
+	/**
+	 * Creates a new Asset with the assigned file.
+	 * If the passed file doesn't exist, an
+	 * {@link com.picksel.util.exception.AssetException}
+	 * is thrown. Assets which stream their file instead of
+	 * reading all of it can skip the file size warning.
+	 *
+	 * @param file File this Asset uses
+	 * @param warnSize Whether to warn about files larger than
+	 * {@link #MAX_SIZE}
+	 */
+	protected Asset(File file, boolean warnSize) {
 		this.file = file;
 
 		if(!file.exists()) {
 			throw new AssetException("The file \"" + file + "\" does not exist.");
-		} else if(file.length() >= MAX_SIZE) {
+		} else if(warnSize && file.length() >= MAX_SIZE) {
 			warn(new AssetWarning(
 				"\"" + file + "\" is larger than 5 megabytes. " +
 				"Using this file may cause high memory usage."
@@ -97,4 +112,23 @@ public class Asset {
 	public File getFile() {
 		return file;
 	}
+
+	/**
+	 * Gets an estimate of the memory this Asset's decoded data
+	 * uses, such as pixels or tile indices. Data which is only
+	 * created when first used is counted once it exists.
+	 *
+	 * @return Decoded size in bytes
+	 */
+	public long getMemorySize() {
+		return 0L;
+	}
+
+	/**
+	 * Releases anything this Asset holds outside of memory,
+	 * such as open files or Threads. Called by
+	 * {@link AssetManager} when it drops this Asset. Does
+	 * nothing by default.
+	 */
+	public void dispose() {}
 }
\ No newline at end of file
@@ -0,0 +1,560 @@
+package com.picksel.asset;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import com.picksel.util.VersionInfo;
+import com.picksel.util.exception.AssetException;
+
+/**
+ * Loads and shares Assets. Each Asset is loaded once per file
+ * and handed out through {@link Handle}s, which count how
+ * many users it has. Assets with no users are kept cached, so
+ * loading them again is free, until the memory used by every
+ * loaded Asset goes over the budget. Then the least recently
+ * released Assets with no users are dropped first. Assets in
+ * use are never dropped, even over budget.<br>
+ *
+ * Assets can also be loaded asynchronously, on a fixed pool
+ * of background Threads. Asynchronous loads return a handle
+ * right away, and {@link #getProgress()} tracks how much of
+ * the current batch of loads is done, for loading screens.
+ * Loading the same Asset twice at once only loads it once.
+ *
+ * @author Noah James Rathman
+ */
+@VersionInfo(
+	version				= "1.0",
+	releaseDate		= "",
+	since					= "1.0",
+	contributors	= {"Noah J Rathman"}
+)
+public final class AssetManager {
+	/** Default memory budget, in bytes. */
+	public static final long DEFAULT_BUDGET = 64L << 20;
+
+	private final HashMap<String, Entry> entries;
+	private final LinkedHashMap<String, Entry> unused;
+	private final int threads;
+	private ExecutorService pool;
+	private long budget, memoryUsed;
+	private int requested, finished;
+
+	/**
+	 * Creates a new AssetManager with the default budget.
+	 */
+	public AssetManager() {
+		this(DEFAULT_BUDGET);
+	}
+
+	/**
+	 * Creates a new AssetManager which loads asynchronously on
+	 * one Thread per processor.
+	 *
+	 * @param budget Memory budget in bytes
+	 */
+	public AssetManager(long budget) {
+		this(budget, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a new AssetManager.
+	 *
+	 * @param budget Memory budget in bytes
+	 * @param threads Amount of Threads asynchronous loads run on
+	 */
+	public AssetManager(long budget, int threads) {
+		this.budget = budget;
+		this.threads = Math.max(1, threads);
+
+		entries = new HashMap<>();
+		unused = new LinkedHashMap<>();
+		memoryUsed = 0L;
+		requested = 0;
+		finished = 0;
+	}
+
+	/**
+	 * Gets a handle to the Texture loaded from the passed file.
+	 *
+	 * @param file Image file
+	 * @return New Texture handle
+	 */
+	public Handle<Texture> texture(File file) {
+		return acquire("texture:" + path(file), () -> new Texture(file));
+	}
+
+	/**
+	 * Gets a handle to the TileSheet loaded from the passed
+	 * file with the passed tile size.
+	 *
+	 * @param file Image file
+	 * @param tileWidth Width of each tile
+	 * @param tileHeight Height of each tile
+	 * @return New TileSheet handle
+	 */
+	public Handle<TileSheet> tileSheet(File file, int tileWidth, int tileHeight) {
+		return acquire("tilesheet:" + tileWidth + "x" + tileHeight + ":" + path(file), () -> new TileSheet(file, tileWidth, tileHeight));
+	}
+
+	/**
+	 * Gets a handle to the Sound loaded from the passed file.
+	 *
+	 * @param file Sound file
+	 * @return New Sound handle
+	 */
+	public Handle<Sound> sound(File file) {
+		return acquire("sound:" + path(file), () -> new Sound(file));
+	}
+
+	/**
+	 * Gets a handle to the Map loaded from the passed file.
+	 *
+	 * @param file Map file
+	 * @return New Map handle
+	 */
+	public Handle<Map> map(File file) {
+		return acquire("map:" + path(file), () -> new Map(file));
+	}
+
+	/**
+	 * Gets a handle to the Texture loaded from the passed file,
+	 * loading it in the background.
+	 *
+	 * @param file Image file
+	 * @return New Texture handle
+	 * @see #acquireAsync(String, Supplier)
+	 */
+	public Handle<Texture> textureAsync(File file) {
+		return acquireAsync("texture:" + path(file), () -> new Texture(file));
+	}
+
+	/**
+	 * Gets a handle to the TileSheet loaded from the passed
+	 * file with the passed tile size, loading it in the
+	 * background.
+	 *
+	 * @param file Image file
+	 * @param tileWidth Width of each tile
+	 * @param tileHeight Height of each tile
+	 * @return New TileSheet handle
+	 * @see #acquireAsync(String, Supplier)
+	 */
+	public Handle<TileSheet> tileSheetAsync(File file, int tileWidth, int tileHeight) {
+		return acquireAsync("tilesheet:" + tileWidth + "x" + tileHeight + ":" + path(file), () -> new TileSheet(file, tileWidth, tileHeight));
+	}
+
+	/**
+	 * Gets a handle to the Sound loaded from the passed file,
+	 * loading it in the background.
+	 *
+	 * @param file Sound file
+	 * @return New Sound handle
+	 * @see #acquireAsync(String, Supplier)
+	 */
+	public Handle<Sound> soundAsync(File file) {
+		return acquireAsync("sound:" + path(file), () -> new Sound(file));
+	}
+
+	/**
+	 * Gets a handle to the Map loaded from the passed file,
+	 * loading it in the background.
+	 *
+	 * @param file Map file
+	 * @return New Map handle
+	 * @see #acquireAsync(String, Supplier)
+	 */
+	public Handle<Map> mapAsync(File file) {
+		return acquireAsync("map:" + path(file), () -> new Map(file));
+	}
+
+	/**
+	 * Gets a handle to the Asset with the passed key. If no
+	 * Asset with the key is loaded, {@code loader} is called to
+	 * load it. Use this for Assets without a method of their
+	 * own. Keys should hold everything which changes the loaded
+	 * Asset, such as its canonical path.
+	 *
+	 * @param <T> Asset type
+	 * @param key Identifier of the Asset
+	 * @param loader Loads the Asset
+	 * @return New Asset handle
+	 */
+	public <T extends Asset> Handle<T> acquire(String key, Supplier<T> loader) {
+		Handle<T> handle = new Handle<>(reference(key));
+
+		if(claim(handle.entry)) load(handle.entry, loader, false);
+		handle.get();
+
+		return handle;
+	}
+
+	/**
+	 * Gets a handle to the Asset with the passed key, loading it
+	 * on a background Thread if it isn't loaded. The handle is
+	 * returned right away, and {@link Handle#get()} waits for
+	 * the Asset to finish loading.
+	 *
+	 * @param <T> Asset type
+	 * @param key Identifier of the Asset
+	 * @param loader Loads the Asset
+	 * @return New Asset handle
+	 * @see #acquire(String, Supplier)
+	 */
+	public <T extends Asset> Handle<T> acquireAsync(String key, Supplier<T> loader) {
+		Handle<T> handle = new Handle<>(reference(key));
+
+		if(claim(handle.entry)) {
+			ExecutorService pool;
+
+			synchronized(this) {
+				if(finished == requested) {
+					requested = 0;
+					finished = 0;
+				}
+
+				requested++;
+				pool = pool();
+			}
+
+			try {
+				pool.execute(() -> load(handle.entry, loader, true));
+			} catch(RejectedExecutionException e) {
+				fail(handle.entry, e, true);
+			}
+		}
+
+		return handle;
+	}
+
+	private synchronized Entry reference(String key) {
+		Entry entry = entries.get(key);
+
+		if(entry == null) {
+			entry = new Entry(key);
+			entries.put(key, entry);
+		} else if(entry.users == 0) {
+			unused.remove(key);
+		}
+
+		entry.users++;
+		return entry;
+	}
+
+	private synchronized boolean claim(Entry entry) {
+		if(entry.claimed) return false;
+
+		entry.claimed = true;
+		return true;
+	}
+
+	private void load(Entry entry, Supplier<? extends Asset> loader, boolean async) {
+		Asset asset;
+		long size;
+
+		try {
+			asset = loader.get();
+			size = asset.getMemorySize();
+		} catch(Throwable e) {
+			fail(entry, e, async);
+			return;
+		}
+
+		synchronized(this) {
+			entry.asset = asset;
+			entry.size = size;
+
+			if(entries.get(entry.key) == entry) memoryUsed += size;
+			if(async) finish();
+		}
+
+		entry.future.complete(asset);
+
+		synchronized(this) {
+			trim();
+		}
+	}
+
+	private void fail(Entry entry, Throwable error, boolean async) {
+		synchronized(this) {
+			if(entries.get(entry.key) == entry) entries.remove(entry.key);
+			if(unused.get(entry.key) == entry) unused.remove(entry.key);
+			if(async) finish();
+		}
+
+		entry.future.completeExceptionally(error);
+	}
+
+	private void finish() {
+		finished++;
+		notifyAll();
+	}
+
+	private synchronized ExecutorService pool() {
+		if(pool == null) {
+			pool = Executors.newFixedThreadPool(threads, task -> {
+				Thread thread = new Thread(task, "Picksel Asset Loader");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+
+		return pool;
+	}
+
+	private synchronized void release(Entry entry) {
+		entry.users--;
+
+		if(entries.get(entry.key) != entry) return;
+
+		if(entry.asset != null) {
+			long size = entry.asset.getMemorySize();
+			memoryUsed += size - entry.size;
+			entry.size = size;
+		}
+
+		if(entry.users == 0) {
+			unused.put(entry.key, entry);
+			trim();
+		}
+	}
+
+	private void trim() {
+		Iterator<Entry> it = unused.values().iterator();
+
+		while(memoryUsed > budget && it.hasNext()) {
+			Entry entry = it.next();
+			if(entry.asset == null) continue;
+
+			it.remove();
+			entries.remove(entry.key);
+			memoryUsed -= entry.size;
+			entry.asset.dispose();
+		}
+	}
+
+	private static String path(File file) {
+		try {
+			return file.getCanonicalPath();
+		} catch(IOException e) {
+			throw new AssetException("Could not resolve \"" + file + "\": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Drops every cached Asset which has no users, and disposes
+	 * of it.
+	 */
+	public synchronized void clear() {
+		Iterator<Entry> it = unused.values().iterator();
+
+		while(it.hasNext()) {
+			Entry entry = it.next();
+			if(entry.asset == null) continue;
+
+			it.remove();
+			entries.remove(entry.key);
+			memoryUsed -= entry.size;
+			entry.asset.dispose();
+		}
+	}
+
+	/**
+	 * Gets how much of the current batch of asynchronous loads
+	 * is done. A new batch starts with the first asynchronous
+	 * load after every earlier one is done. Failed loads count
+	 * as done.
+	 *
+	 * @return Progress from {@code 0} to {@code 1}, or {@code 1}
+	 * if nothing is loading
+	 */
+	public synchronized float getProgress() {
+		return requested == 0 ? 1f : (float) finished / requested;
+	}
+
+	/**
+	 * Gets the amount of asynchronous loads which aren't done.
+	 *
+	 * @return Pending load count
+	 */
+	public synchronized int getPendingCount() {
+		return requested - finished;
+	}
+
+	/**
+	 * Waits until every asynchronous load is done.
+	 */
+	public synchronized void awaitAll() {
+		boolean interrupted = false;
+
+		while(finished < requested) {
+			try {
+				wait();
+			} catch(InterruptedException e) {
+				interrupted = true;
+			}
+		}
+
+		if(interrupted) Thread.currentThread().interrupt();
+	}
+
+	/**
+	 * Stops the background Threads once every queued load is
+	 * done. Later asynchronous loads start new Threads.
+	 */
+	public synchronized void shutdown() {
+		if(pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+	}
+
+	/**
+	 * Sets the memory budget. Cached Assets without users are
+	 * dropped and disposed of right away until the budget is
+	 * met.
+	 *
+	 * @param budget New memory budget in bytes
+	 */
+	public synchronized void setBudget(long budget) {
+		this.budget = budget;
+		trim();
+	}
+
+	/**
+	 * Gets the memory budget.
+	 *
+	 * @return Memory budget in bytes
+	 */
+	public synchronized long getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Gets the memory used by every loaded Asset, as measured
+	 * when each was loaded or last released.
+	 *
+	 * @return Memory used in bytes
+	 */
+	public synchronized long getMemoryUsed() {
+		return memoryUsed;
+	}
+
+	/**
+	 * Gets the amount of loaded Assets, with or without users.
+	 *
+	 * @return Loaded Asset count
+	 */
+	public synchronized int getLoadedCount() {
+		return entries.size();
+	}
+
+	/**
+	 * Tests if the Asset with the passed key is loaded.
+	 *
+	 * @param key Identifier of the Asset
+	 * @return {@code True} if the Asset is loaded,
+	 * {@code false} otherwise.
+	 */
+	public synchronized boolean isLoaded(String key) {
+		return entries.containsKey(key);
+	}
+
+	/**
+	 * Counted reference to a shared Asset. Every handle must be
+	 * released once it's no longer used.
+	 *
+	 * @param <T> Asset type
+	 */
+	public final class Handle<T extends Asset> {
+		private final Entry entry;
+		private boolean released;
+
+		private Handle(Entry entry) {
+			this.entry = entry;
+			released = false;
+		}
+
+		/**
+		 * Gets the shared Asset, waiting for it to finish loading
+		 * if needed. If loading failed, the exception thrown while
+		 * loading is thrown again.
+		 *
+		 * @return Asset this handle refers to
+		 */
+		@SuppressWarnings("unchecked")
+		public T get() {
+			if(released) throw new IllegalStateException("The handle to \"" + entry.key + "\" was released.");
+
+			try {
+				return (T) entry.future.join();
+			} catch(CompletionException e) {
+				if(e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+				if(e.getCause() instanceof Error) throw (Error) e.getCause();
+
+				throw e;
+			}
+		}
+
+		/**
+		 * Tests if the shared Asset is done loading, or failed to
+		 * load.
+		 *
+		 * @return {@code True} if {@link #get()} won't wait,
+		 * {@code false} otherwise.
+		 */
+		public boolean isDone() {
+			return entry.future.isDone();
+		}
+
+		/**
+		 * Gets the key of the shared Asset.
+		 *
+		 * @return Identifier of the Asset
+		 */
+		public String getKey() {
+			return entry.key;
+		}
+
+		/**
+		 * Gives up this handle. The Asset may be dropped once it
+		 * has no handles left. Releasing a handle twice does
+		 * nothing.
+		 */
+		public void release() {
+			if(released) return;
+
+			released = true;
+			AssetManager.this.release(entry);
+		}
+	}
+
+	/**
+	 * Loaded Asset and its users. The first user to claim an
+	 * Entry loads its Asset.
+	 */
+	private static final class Entry {
+		private final String key;
+		private final CompletableFuture<Asset> future;
+		private Asset asset;
+		private int users;
+		private long size;
+		private boolean claimed;
+
+		private Entry(String key) {
+			this.key = key;
+			future = new CompletableFuture<>();
+			users = 0;
+			size = 0L;
+			claimed = false;
+		}
+	}
+}
\ No newline at end of file
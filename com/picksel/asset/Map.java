@@ -1,17 +1,44 @@
 package com.picksel.asset;
 
-import java.util.Scanner;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 import com.picksel.util.exception.*;
 
 /**
- * Parses files that hold TileMap information.
+ * Parses files that hold TileMap information.<br>
+ *
+ * Text {@code .pmap} files hold the map width and height,
+ * then every tile index row by row, separated by whitespace.
+ * Binary {@code .pmap} files start with a header of five
+ * {@code int}s: the {@code PMAP} magic number, the format
+ * version, the map width and height, and a flags value. If
+ * the {@link #RUN_LENGTH} flag is set, the indices are stored
+ * as pairs of run length and index, otherwise every index is
+ * stored row by row. Every value is big-endian. Both formats
+ * are detected when loading, and either can be written with
+ * {@link #writeText(File)} or {@link #writeBinary(File, boolean)}.
  *
  * @author Noah James Rathman
  */
 public final class Map extends Asset {
-	private int[][] iArray;
+	/** Magic number binary map files start with. */
+	public static final int MAGIC = 0x504d4150;
+
+	/** Binary map format version this class reads and writes. */
+	public static final int VERSION = 1;
+
+	/** Binary map flag for run-length compressed indices. */
+	public static final int RUN_LENGTH = 1;
+
+	private static final int HEADER = 20;
+
+	//Class
+	private int[] indices;
+	private int width, height;
 
 	/**
 	 * Creates a new Map.
@@ -33,32 +60,280 @@ public final class Map extends Asset {
 	}
 
 	private void generateIndexArray() {
-		try {
-			FileInputStream fStream = new FileInputStream(file);
-			Scanner scn = new Scanner(fStream);
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			ByteBuffer magic = ByteBuffer.allocate(4);
+			channel.read(magic, 0);
+
+			if(!magic.hasRemaining() && magic.getInt(0) == MAGIC) {
+				readBinary(channel);
+			} else {
+				readText();
+			}
+		} catch(IOException e) {
+			throw new AssetException("Failed to load map: " + e.getMessage());
+		}
+	}
+
+	private void readBinary(FileChannel channel) throws IOException {
+		if(channel.size() < HEADER) throw new AssetException("The map \"" + file + "\" is truncated.");
+
+		IntBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).asIntBuffer();
+
+		if(data.get(1) != VERSION) {
+			throw new AssetException("The map \"" + file + "\" has unsupported version " + data.get(1) + ".");
+		}
+
+		width = data.get(2);
+		height = data.get(3);
+
+		int size = checkSize();
+		long bytes = channel.size() - HEADER;
+		data.position(HEADER / 4);
+
+		if((data.get(4) & RUN_LENGTH) == 0) {
+			if(bytes != 4L * size) {
+				throw new AssetException("The map \"" + file + "\" holds " + bytes + " bytes of indices instead of " + 4L * size + ".");
+			}
+
+			indices = new int[size];
+			data.get(indices);
+			return;
+		}
+
+		if(bytes % 8 != 0) throw new AssetException("The map \"" + file + "\" is truncated.");
+
+		long covered = 0;
+
+		for(int i = data.position(); i < data.limit(); i += 2) {
+			int run = data.get(i);
+
+			if(run <= 0) throw new AssetException("The map \"" + file + "\" has an invalid run length of " + run + ".");
+
+			covered += run;
+		}
+
+		if(covered != size) {
+			throw new AssetException("The map \"" + file + "\" has runs covering " + covered + " tiles instead of " + size + ".");
+		}
+
+		indices = new int[size];
 
-			int tWidth = scn.nextInt();
-			int tHeight = scn.nextInt();
-			iArray = new int[tWidth][tHeight];
+		for(int i = 0; i < size;) {
+			int run = data.get(), index = data.get();
 
-			for(int y = 0; y < tHeight; y++) {
-				for(int x = 0; x < tWidth; x++) {
-					iArray[x][y] = scn.nextInt();
+			for(int end = i + run; i < end; i++) {
+				indices[i] = index;
+			}
+		}
+	}
+
+	private void readText() throws IOException {
+		try(InputStream in = new FileInputStream(file)) {
+			TextReader reader = new TextReader(in);
+
+			width = reader.nextInt();
+			height = reader.nextInt();
+			indices = new int[checkSize()];
+
+			for(int i = 0; i < indices.length; i++) {
+				indices[i] = reader.nextInt();
+			}
+		}
+	}
+
+	private int checkSize() {
+		long size = (long) width * height;
+
+		if(width <= 0 || height <= 0 || size > Integer.MAX_VALUE) {
+			throw new AssetException("The map \"" + file + "\" has an invalid size of " + width + "x" + height + ".");
+		}
+
+		return (int) size;
+	}
+
+	/**
+	 * Writes this Map to the passed file in the text format.
+	 *
+	 * @param file File being written
+	 */
+	public void writeText(File file) {
+		try(Writer out = new BufferedWriter(new FileWriter(file), 1 << 16)) {
+			out.write(width + " " + height + "\n");
+
+			for(int y = 0; y < height; y++) {
+				for(int x = 0; x < width; x++) {
+					if(x > 0) out.write(' ');
+					out.write(Integer.toString(indices[y * width + x]));
 				}
+
+				out.write('\n');
 			}
+		} catch(IOException e) {
+			throw new AssetException("Could not write map: " + e.getMessage());
+		}
+	}
 
-			scn.close();
+	/**
+	 * Writes this Map to the passed file in the binary format.
+	 * Run-length compression suits sparse maps with long runs of
+	 * the same tile, but doubles the size of maps without runs.
+	 *
+	 * @param file File being written
+	 * @param compressed Whether indices are run-length compressed
+	 */
+	public void writeBinary(File file, boolean compressed) {
+		try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(width);
+			out.writeInt(height);
+			out.writeInt(compressed ? RUN_LENGTH : 0);
+
+			if(!compressed) {
+				for(int i = 0; i < indices.length; i++) {
+					out.writeInt(indices[i]);
+				}
+
+				return;
+			}
+
+			for(int i = 0; i < indices.length;) {
+				int run = 1;
+
+				while(i + run < indices.length && indices[i + run] == indices[i]) run++;
+
+				out.writeInt(run);
+				out.writeInt(indices[i]);
+				i += run;
+			}
 		} catch(IOException e) {
-			throw new AssetException("Failed to load map: " + e.getMessage());
+			throw new AssetException("Could not write map: " + e.getMessage());
 		}
 	}
 
 	/**
-	 * Gets the generated index array.
+	 * Gets the tile indices of this Map, stored row-major
+	 * ({@code y * width + x}). The array is not copied.
 	 *
 	 * @return Array of TileMap indices
 	 */
+	public int[] getIndices() {
+		return indices;
+	}
+
+	/**
+	 * Gets the tile index at the passed position.
+	 *
+	 * @param x Tile column
+	 * @param y Tile row
+	 * @return Tile index
+	 */
+	public int getIndex(int x, int y) {
+		return indices[y * width + x];
+	}
+
+	/**
+	 * Gets the width of this Map.
+	 *
+	 * @return Amount of tile columns
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Gets the height of this Map.
+	 *
+	 * @return Amount of tile rows
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Gets the memory used by the tile indices of this Map.
+	 *
+	 * @return Decoded size in bytes
+	 */
+	public long getMemorySize() {
+		return 4L * indices.length;
+	}
+
+	/**
+	 * Creates a column-major ({@code [x][y]}) copy of the tile
+	 * indices of this Map. Changing the copy doesn't change
+	 * this Map.
+	 *
+	 * @return Array of TileMap indices
+	 * @deprecated Use {@link #getIndices()}, which doesn't copy.
+	 */
+	@Deprecated
 	public int[][] getIndexArray() {
+		int[][] iArray = new int[width][height];
+
+		for(int y = 0; y < height; y++) {
+			for(int x = 0; x < width; x++) {
+				iArray[x][y] = indices[y * width + x];
+			}
+		}
+
 		return iArray;
 	}
+
+	/**
+	 * Reads whitespace separated integers through a buffer,
+	 * one byte at a time.
+	 */
+	private final class TextReader {
+		private final InputStream in;
+		private final byte[] buffer;
+		private int position, limit;
+
+		private TextReader(InputStream in) {
+			this.in = in;
+			buffer = new byte[1 << 16];
+			position = 0;
+			limit = 0;
+		}
+
+		private int read() throws IOException {
+			if(position == limit) {
+				limit = in.read(buffer);
+				position = 0;
+
+				if(limit <= 0) {
+					limit = 0;
+					return -1;
+				}
+			}
+
+			return buffer[position++] & 0xff;
+		}
+
+		private int nextInt() throws IOException {
+			int c = read();
+
+			while(c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f') c = read();
+
+			if(c < 0) throw new AssetException("The map \"" + file + "\" ended before every index was read.");
+
+			boolean negative = c == '-';
+			if(negative) c = read();
+
+			if(c < '0' || c > '9') throw new AssetException("The map \"" + file + "\" holds an invalid index.");
+
+			int value = 0;
+
+			while(c >= '0' && c <= '9') {
+				value = value * 10 + c - '0';
+				c = read();
+			}
+
+			if(c >= 0 && c != ' ' && c != '\n' && c != '\r' && c != '\t' && c != '\f') {
+				throw new AssetException("The map \"" + file + "\" holds an invalid index.");
+			}
+
+			return negative ? -value : value;
+		}
+	}
 }
\ No newline at end of file
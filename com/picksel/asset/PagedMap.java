@@ -0,0 +1,486 @@
+package com.picksel.asset;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.picksel.util.VersionInfo;
+import com.picksel.util.exception.*;
+
+/**
+ * Map which is split into square regions and streamed from
+ * disk. Only the file header is read at creation. Regions
+ * are read on a background Thread when they're requested,
+ * and dropped once they're far from the requested area, so
+ * maps can be far larger than memory.<br>
+ *
+ * Paged map files start with a header of five {@code int}s:
+ * the {@code PPMP} magic number, the format version, the map
+ * width and height in tiles, and the region size in tiles.
+ * The header is followed by the file offset of every region
+ * as a {@code long}, from top left to bottom right, and then
+ * the regions themselves. Each region holds its tile indices
+ * as {@code int}s, row-major. Regions on the right and bottom
+ * edges are cut to the map size. Every value is big-endian.
+ * Use {@link #write(File, Map, int)} to convert a Map.
+ *
+ * @author Noah James Rathman
+ */
+@VersionInfo(
+	version				= "1.0",
+	releaseDate		= "",
+	since					= "1.0",
+	contributors	= {"Noah J Rathman"}
+)
+public final class PagedMap extends Asset {
+	/** Magic number every paged map file starts with. */
+	public static final int MAGIC = 0x50504d50;
+
+	/** Paged map format version this class reads and writes. */
+	public static final int VERSION = 1;
+
+	private static final int HEADER = 20;
+
+	/**
+	 * Writes the passed Map to the passed file in the paged
+	 * map format.
+	 *
+	 * @param file File being written
+	 * @param map Map being converted
+	 * @param regionSize Width and height of each region in tiles
+	 */
+	public static void write(File file, Map map, int regionSize) {
+		if(regionSize <= 0) throw new IllegalArgumentException("Region size must be positive.");
+
+		int width = map.getWidth(), height = map.getHeight();
+		int regionsX = (width + regionSize - 1) / regionSize;
+		int regionsY = (height + regionSize - 1) / regionSize;
+
+		try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(width);
+			out.writeInt(height);
+			out.writeInt(regionSize);
+
+			long offset = HEADER + 8L * regionsX * regionsY;
+
+			for(int rY = 0; rY < regionsY; rY++) {
+				for(int rX = 0; rX < regionsX; rX++) {
+					out.writeLong(offset);
+					offset += 4L * Math.min(regionSize, width - rX * regionSize) * Math.min(regionSize, height - rY * regionSize);
+				}
+			}
+
+			int[] indices = map.getIndices();
+
+			for(int rY = 0; rY < regionsY; rY++) {
+				for(int rX = 0; rX < regionsX; rX++) {
+					int x1 = rX * regionSize, x2 = Math.min(width, x1 + regionSize);
+					int y1 = rY * regionSize, y2 = Math.min(height, y1 + regionSize);
+
+					for(int y = y1; y < y2; y++) {
+						for(int x = x1; x < x2; x++) {
+							out.writeInt(indices[y * width + x]);
+						}
+					}
+				}
+			}
+		} catch(IOException e) {
+			throw new AssetException("Could not write paged map: " + e.getMessage());
+		}
+	}
+
+	//Class
+	private final FileChannel channel;
+	private final int width, height, regionSize, regionsX, regionsY;
+	private final long[] offsets;
+	private final AtomicReferenceArray<int[]> regions;
+	private final boolean[] queued;
+	private int[] live;
+	private int liveSize;
+	private Loader loader;
+
+	/**
+	 * Creates a new PagedMap and reads its header. No regions
+	 * are read until they're requested.
+	 * See {@link com.picksel.asset.Asset#Asset(File)}
+	 * for more details.
+	 *
+	 * @param file File this Asset uses
+	 */
+	public PagedMap(File file) {
+		super(file, false);
+
+		try {
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER);
+			readFully(header, 0);
+
+			if(header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+				channel.close();
+				throw new AssetException("The file \"" + file + "\" is not a version " + VERSION + " paged map.");
+			}
+
+			width = header.getInt(8);
+			height = header.getInt(12);
+			regionSize = header.getInt(16);
+
+			if(width <= 0 || height <= 0 || regionSize <= 0 || 4L * Math.min(regionSize, width) * Math.min(regionSize, height) > Integer.MAX_VALUE) {
+				channel.close();
+				throw new AssetException("The paged map \"" + file + "\" has an invalid size of " + width + "x" + height + " in regions of " + regionSize + ".");
+			}
+
+			regionsX = (int) ((width + (long) regionSize - 1) / regionSize);
+			regionsY = (int) ((height + (long) regionSize - 1) / regionSize);
+
+			long count = (long) regionsX * regionsY;
+
+			if(count > (channel.size() - HEADER) / 8) {
+				channel.close();
+				throw new AssetException("The paged map \"" + file + "\" is truncated.");
+			}
+
+			ByteBuffer table = ByteBuffer.allocate(8 * (int) count);
+			readFully(table, HEADER);
+
+			offsets = new long[(int) count];
+			table.flip();
+			table.asLongBuffer().get(offsets);
+
+			checkOffsets();
+		} catch(IOException e) {
+			throw new AssetException("Failed to load paged map: " + e.getMessage());
+		}
+
+		regions = new AtomicReferenceArray<>(regionsX * regionsY);
+		queued = new boolean[regionsX * regionsY];
+		live = new int[16];
+		liveSize = 0;
+	}
+
+	private void checkOffsets() throws IOException {
+		long start = HEADER + 8L * offsets.length, end = channel.size();
+
+		for(int region = 0; region < offsets.length; region++) {
+			int rX = region % regionsX, rY = region / regionsX;
+			long size = 4L * Math.min(regionSize, width - rX * regionSize) * Math.min(regionSize, height - rY * regionSize);
+
+			if(offsets[region] < start || offsets[region] > end - size) {
+				channel.close();
+				throw new AssetException("The paged map \"" + file + "\" has an invalid offset for region " + region + ".");
+			}
+		}
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while(buffer.hasRemaining()) {
+			if(channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException("Unexpected end of \"" + file + "\".");
+			}
+		}
+	}
+
+	/**
+	 * Keeps the regions overlapping the passed tile area loaded.
+	 * Regions which aren't loaded yet are queued on the loader
+	 * Thread, and regions more than one region away from the
+	 * area are dropped, or taken off the queue if they aren't
+	 * loaded yet. Tiles stay unavailable until their region is
+	 * loaded, so the area should reach past what's drawn to
+	 * hide loading.
+	 *
+	 * @param x1 Left tile column
+	 * @param y1 Top tile row
+	 * @param x2 Right tile column (exclusive)
+	 * @param y2 Bottom tile row (exclusive)
+	 */
+	public void request(int x1, int y1, int x2, int y2) {
+		if(loader != null && loader.error != null) {
+			throw new AssetException("Failed to load paged map region: " + loader.error.getMessage());
+		}
+
+		int rX1 = Math.max(0, Math.floorDiv(x1, regionSize)), rX2 = Math.min(regionsX, Math.floorDiv(x2 - 1, regionSize) + 1);
+		int rY1 = Math.max(0, Math.floorDiv(y1, regionSize)), rY2 = Math.min(regionsY, Math.floorDiv(y2 - 1, regionSize) + 1);
+
+		for(int i = liveSize - 1; i >= 0; i--) {
+			int region = live[i];
+			int rX = region % regionsX, rY = region / regionsX;
+
+			if(rX >= rX1 - 1 && rX <= rX2 && rY >= rY1 - 1 && rY <= rY2) continue;
+
+			if(loader != null) loader.cancel(region);
+			regions.set(region, null);
+			queued[region] = false;
+			live[i] = live[--liveSize];
+		}
+
+		for(int rY = rY1; rY < rY2; rY++) {
+			for(int rX = rX1; rX < rX2; rX++) {
+				int region = rY * regionsX + rX;
+
+				if(queued[region]) continue;
+
+				if(loader == null) {
+					loader = new Loader();
+					loader.start();
+				}
+
+				if(liveSize == live.length) live = Arrays.copyOf(live, liveSize * 2);
+				live[liveSize++] = region;
+				queued[region] = true;
+				loader.submit(region);
+			}
+		}
+	}
+
+	/**
+	 * Waits until every requested region is loaded.
+	 */
+	public void finishLoading() {
+		if(loader != null) loader.await();
+	}
+
+	/**
+	 * Stops the loader Thread and closes the map file. Requests
+	 * made after closing fail.
+	 */
+	public void close() {
+		if(loader != null) {
+			loader.finish();
+			loader = null;
+		}
+
+		try {
+			channel.close();
+		} catch(IOException e) {
+			throw new AssetException("Failed to close paged map: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Closes this map. See {@link #close()}.
+	 */
+	public void dispose() {
+		close();
+	}
+
+	/**
+	 * Gets the tile index at the passed position.
+	 *
+	 * @param x Tile column
+	 * @param y Tile row
+	 * @return Tile index, or {@code -1} if the tile is outside
+	 * this map or its region isn't loaded
+	 */
+	public int getIndex(int x, int y) {
+		if(x < 0 || y < 0 || x >= width || y >= height) return -1;
+
+		int rX = x / regionSize, rY = y / regionSize;
+		int[] region = regions.get(rY * regionsX + rX);
+
+		if(region == null) return -1;
+
+		int w = Math.min(regionSize, width - rX * regionSize);
+		return region[(y - rY * regionSize) * w + x - rX * regionSize];
+	}
+
+	/**
+	 * Tests if the region holding the passed tile is loaded.
+	 *
+	 * @param x Tile column
+	 * @param y Tile row
+	 * @return {@code True} if the tile is available,
+	 * {@code false} otherwise, or if it's outside this map.
+	 */
+	public boolean isLoaded(int x, int y) {
+		if(x < 0 || y < 0 || x >= width || y >= height) return false;
+
+		return regions.get((y / regionSize) * regionsX + x / regionSize) != null;
+	}
+
+	/**
+	 * Gets the width of this map.
+	 *
+	 * @return Amount of tile columns
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Gets the height of this map.
+	 *
+	 * @return Amount of tile rows
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Gets the width and height of each region.
+	 *
+	 * @return Region size in tiles
+	 */
+	public int getRegionSize() {
+		return regionSize;
+	}
+
+	/**
+	 * Gets the amount of regions which are loaded or queued.
+	 *
+	 * @return Live region count
+	 */
+	public int getLiveRegions() {
+		return liveSize;
+	}
+
+	/**
+	 * Gets an estimate of the memory used by the live regions
+	 * and the region table of this map.
+	 *
+	 * @return Decoded size in bytes
+	 */
+	public long getMemorySize() {
+		return 4L * Math.min(regionSize, width) * Math.min(regionSize, height) * liveSize + 13L * offsets.length;
+	}
+
+	private int[] readRegion(int region, ByteBuffer buffer) throws IOException {
+		int rX = region % regionsX, rY = region / regionsX;
+		int w = Math.min(regionSize, width - rX * regionSize);
+		int h = Math.min(regionSize, height - rY * regionSize);
+
+		buffer.clear().limit(4 * w * h);
+		readFully(buffer, offsets[region]);
+
+		int[] tiles = new int[w * h];
+		buffer.flip();
+		buffer.asIntBuffer().get(tiles);
+
+		return tiles;
+	}
+
+	/**
+	 * Reads queued regions one at a time, in request order. A
+	 * cancelled region is taken off the queue, or thrown away
+	 * once read if it was being read.
+	 */
+	private final class Loader extends Thread {
+		private int[] queue;
+		private int head, size, current;
+		private boolean running, busy, dropped;
+		private final ByteBuffer buffer;
+		private volatile IOException error;
+
+		private Loader() {
+			super("Picksel Map Loader");
+			setDaemon(true);
+
+			queue = new int[16];
+			head = 0;
+			size = 0;
+			current = -1;
+			running = true;
+			busy = false;
+			dropped = false;
+			buffer = ByteBuffer.allocate(4 * Math.min(regionSize, width) * Math.min(regionSize, height));
+		}
+
+		private synchronized void submit(int region) {
+			if(size == queue.length) {
+				int[] grown = new int[size * 2];
+
+				for(int i = 0; i < size; i++) {
+					grown[i] = queue[(head + i) % queue.length];
+				}
+
+				queue = grown;
+				head = 0;
+			}
+
+			queue[(head + size++) % queue.length] = region;
+			notifyAll();
+		}
+
+		private synchronized void cancel(int region) {
+			for(int i = 0; i < size; i++) {
+				if(queue[(head + i) % queue.length] != region) continue;
+
+				for(int j = i + 1; j < size; j++) {
+					queue[(head + j - 1) % queue.length] = queue[(head + j) % queue.length];
+				}
+
+				size--;
+				notifyAll();
+				return;
+			}
+
+			if(region == current) dropped = true;
+		}
+
+		private synchronized void publish(int region, int[] tiles) {
+			if(!dropped) regions.set(region, tiles);
+
+			current = -1;
+			dropped = false;
+		}
+
+		private synchronized void await() {
+			boolean interrupted = false;
+
+			while((size > 0 || busy) && error == null) {
+				try {
+					wait();
+				} catch(InterruptedException e) {
+					interrupted = true;
+				}
+			}
+
+			if(interrupted) Thread.currentThread().interrupt();
+		}
+
+		private synchronized void finish() {
+			running = false;
+			notifyAll();
+		}
+
+		private synchronized int next() throws InterruptedException {
+			busy = false;
+			notifyAll();
+
+			while(size == 0 && running) wait();
+			if(!running) return -1;
+
+			int region = queue[head];
+			head = (head + 1) % queue.length;
+			size--;
+			current = region;
+			busy = true;
+
+			return region;
+		}
+
+		public void run() {
+			try {
+				int region;
+
+				while((region = next()) >= 0) {
+					publish(region, readRegion(region, buffer));
+				}
+			} catch(InterruptedException e) {
+				return;
+			} catch(IOException e) {
+				error = e;
+
+				synchronized(this) {
+					busy = false;
+					notifyAll();
+				}
+			}
+		}
+	}
+}
\ No newline at end of file
@@ -4,7 +4,9 @@ import java.awt.image.BufferedImage;
 import java.io.*;
 import javax.imageio.ImageIO;
 
+import com.picksel.renderer.Bitmap;
 import com.picksel.renderer.Color;
+import com.picksel.renderer.RunLengthBitmap;
 import com.picksel.util.exception.*;
 
 /**
@@ -53,9 +55,15 @@ public class Texture extends Asset {
 	 */
 	public static final int MAX_LENGTH = 512;
 
-	/** 2D Color array representation of Image. */
+	/** 2D Color array representation of Image, created when first used. */
 	protected Color[][] cArray;
 
+	/** Packed representation of Image. */
+	protected Bitmap bitmap;
+
+	/** Run-length encoded Image, created when first used. */
+	protected RunLengthBitmap runLength;
+
 	/**
 	 * Creates a new Texture with the passed file.
 	 * See {@link com.picksel.asset.Asset#Asset(File)} 
@@ -69,6 +77,10 @@ public class Texture extends Asset {
 		try {
 			BufferedImage image = ImageIO.read(file);
 
+			if(image == null) {
+				throw new AssetException("Failed to load image: \"" + file + "\" is not a supported image.");
+			}
+
 			if(image.getWidth() > MAX_LENGTH || image.getHeight() > MAX_LENGTH) {
 				warn(new AssetWarning(
 					"The texture \"" + file + "\" exceeds the recommended maximum " +
@@ -76,7 +88,7 @@ public class Texture extends Asset {
 				));
 			}
 
-			cArray = Color.toColorArray(image);
+			bitmap = Bitmap.fromImage(image);
 			image.flush();
 		} catch(IOException e) {
 			throw new AssetException("Failed to load image: " + e.getMessage());
@@ -84,11 +96,76 @@ public class Texture extends Asset {
 	}
 
 	/**
-	 * Gets the 2D Color array generated from this Texture.
+	 * Gets the 2D Color array generated from this Texture. The
+	 * array is created the first time this is called.
 	 *
 	 * @return Texture as 2D Color array
 	 */
 	public Color[][] getColorArray() {
+		if(cArray == null) {
+			cArray = bitmap.toColorArray();
+		}
+
 		return cArray;
 	}
+
+	/**
+	 * Gets the Bitmap generated from this Texture, which the
+	 * Renderer can draw without converting each pixel.
+	 *
+	 * @return Texture as Bitmap
+	 */
+	public Bitmap getBitmap() {
+		return bitmap;
+	}
+
+	/**
+	 * Gets the width of this Texture.
+	 *
+	 * @return Horizontal size
+	 */
+	public int getWidth() {
+		return bitmap.getWidth();
+	}
+
+	/**
+	 * Gets the height of this Texture.
+	 *
+	 * @return Vertical size
+	 */
+	public int getHeight() {
+		return bitmap.getHeight();
+	}
+
+	/**
+	 * Gets the RunLengthBitmap generated from this Texture.
+	 * Best suited for textures with large transparent areas.
+	 *
+	 * @return Texture as RunLengthBitmap
+	 */
+	public RunLengthBitmap getRunLengthBitmap() {
+		if(runLength == null) {
+			runLength = RunLengthBitmap.encode(getBitmap());
+		}
+
+		return runLength;
+	}
+
+	/**
+	 * Gets an estimate of the memory used by this Texture's
+	 * Bitmap, and its Color array and RunLengthBitmap once
+	 * they're created. Each Color is counted as {@code 32}
+	 * bytes.
+	 *
+	 * @return Decoded size in bytes
+	 */
+	public long getMemorySize() {
+		long pixels = (long) bitmap.getWidth() * bitmap.getHeight();
+		long size = pixels * 4 + bitmap.getHeight();
+
+		if(cArray != null) size += pixels * 36 + cArray.length * 16L;
+		if(runLength != null) size += 4L * (runLength.getRuns().length + runLength.getData().length);
+
+		return size;
+	}
 }
\ No newline at end of file
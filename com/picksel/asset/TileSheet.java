@@ -1,21 +1,21 @@
 package com.picksel.asset;
 
-import java.awt.image.BufferedImage;
 import java.io.*;
 
+import com.picksel.renderer.Bitmap;
 import com.picksel.renderer.Color;
-import com.picksel.util.exception.AssetException;
 
 /**
  * Gives a Texture tiled functionality.
  * TileSheets are structured from top left to bottom right,
- * starting from {@code (0, 0)}.
+ * starting from {@code (0, 0)}. Tiles are views into the
+ * Texture's Bitmap, so no pixels are copied.
  *
  * @author Noah James Rathman
  */
 public final class TileSheet extends Texture {
-	private int tileWidth, tileHeight;
-	private Color[][][] cArrays;
+	private int tileWidth, tileHeight, hTiles;
+	private Bitmap[] bitmaps;
 
 	/**
 	 * Creates a new TileSheet with the set tile size.
@@ -32,30 +32,8 @@ public final class TileSheet extends Texture {
 		this.tileWidth = tileWidth;
 		this.tileHeight = tileHeight;
 
-		createColorArrays();
-	}
-
-	private void createColorArrays() {
-		int hTiles			= (cArray.length / tileWidth);
-		int vTiles			= (cArray[0].length / tileHeight);
-		int totalTiles	= hTiles * vTiles;
-		cArrays = new Color[totalTiles][tileWidth][tileHeight];
-
-		int tileIdx = 0;
-		for(int tY = 0; tY < vTiles; tY++) {
-			for(int tX = 0; tX < hTiles; tX++) {
-				int xOff = tX * tileWidth;
-				int yOff = tY * tileHeight;
-
-				for(int x = 0; x < tileWidth; x++) {
-					for(int y = 0; y < tileHeight; y++) {
-						cArrays[tileIdx][x][y] = cArray[x + xOff][y + yOff];
-					}
-				}
-
-				tileIdx++;
-			}
-		}
+		hTiles = getWidth() / tileWidth;
+		bitmaps = new Bitmap[hTiles * (getHeight() / tileHeight)];
 	}
 
 	/**
@@ -77,15 +55,62 @@ public final class TileSheet extends Texture {
 	}
 
 	/**
-	 * Gets the tile at the passed location.
+	 * Gets the amount of tiles in this TileSheet.
+	 *
+	 * @return Tile count
+	 */
+	public int getTileCount() {
+		return bitmaps.length;
+	}
+
+	/**
+	 * Gets a copy of the tile at the passed location as a 2D
+	 * Color array.
 	 *
 	 * @param tileIndex Index of tile (from top left to 
 	 * bottom right)
-	 * @return The tile at the specified position. If the
-	 * passed position is out of bounds, this method
-	 * returns {@code null}.
+	 * @return The tile at the specified position.
+	 * @deprecated Use {@link #getTileBitmap(int)}, which doesn't
+	 * copy the tile.
 	 */
+	@Deprecated
 	public Color[][] getTile(int tileIndex) {
-		return cArrays[tileIndex];
+		return getTileBitmap(tileIndex).toColorArray();
+	}
+
+	/**
+	 * Gets the tile at the passed location as a Bitmap view into
+	 * this TileSheet's pixels. Every call with the same index
+	 * returns the same Bitmap.
+	 *
+	 * @param tileIndex Index of tile (from top left to 
+	 * bottom right)
+	 * @return The tile at the specified position as a Bitmap.
+	 */
+	public Bitmap getTileBitmap(int tileIndex) {
+		if(bitmaps[tileIndex] == null) {
+			int x = (tileIndex % hTiles) * tileWidth;
+			int y = (tileIndex / hTiles) * tileHeight;
+
+			bitmaps[tileIndex] = getBitmap().view(x, y, tileWidth, tileHeight);
+		}
+
+		return bitmaps[tileIndex];
+	}
+
+	/**
+	 * Gets an estimate of the memory used by this TileSheet,
+	 * including every tile view created so far.
+	 *
+	 * @return Decoded size in bytes
+	 */
+	public long getMemorySize() {
+		long size = super.getMemorySize() + 4L * bitmaps.length;
+
+		for(int i = 0; i < bitmaps.length; i++) {
+			if(bitmaps[i] != null) size += 40 + tileHeight;
+		}
+
+		return size;
 	}
 }
\ No newline at end of file
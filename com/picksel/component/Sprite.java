@@ -18,7 +18,8 @@ import com.picksel.util.Camera;
 public final class Sprite implements Component, Renderable {
 	private final String ID;
 	private List<Property> properties;
-	private Color[][] cArray;
+	private Bitmap bitmap;
+	private RunLengthBitmap runLength;
 	private Bounds bounds;
 	private int layer, drawType;
 	private boolean visible;
@@ -31,7 +32,8 @@ public final class Sprite implements Component, Renderable {
 	 * @param bounds Bounding box of this Component
 	 */
 	public Sprite(String id, Texture texture, Bounds bounds) {
-		this(id, texture.getColorArray(), bounds);
+		this(id, texture.getBitmap(), bounds);
+		runLength = texture.getRunLengthBitmap();
 	}
 
 	/**
@@ -42,7 +44,18 @@ public final class Sprite implements Component, Renderable {
 	 * @param bounds Bounding box of this Component
 	 */
 	public Sprite(String id, Color[][] cArray, Bounds bounds) {
-		this.cArray = cArray;
+		this(id, Bitmap.fromColorArray(cArray), bounds);
+	}
+
+	/**
+	 * Creates a new Sprite with the associated Bitmap.
+	 *
+	 * @param id Identifier for this Component
+	 * @param bitmap Bitmap rendered by this Sprite
+	 * @param bounds Bounding box of this Component
+	 */
+	public Sprite(String id, Bitmap bitmap, Bounds bounds) {
+		this.bitmap = bitmap;
 		this.bounds = bounds;
 		ID					= id;
 		layer				= 0;
@@ -50,7 +63,7 @@ public final class Sprite implements Component, Renderable {
 		drawType		= Renderable.STATIC_DRAW;
 		properties	= new ArrayList<Property>();
 		
-		bounds.setSize(cArray.length, cArray[0].length);
+		bounds.setSize(bitmap.getWidth(), bitmap.getHeight());
 	}
 
 	/**
@@ -63,17 +76,20 @@ public final class Sprite implements Component, Renderable {
 	}
 
 	public void update(float dt, Input in) {
-		for(Property p : properties) {
-			p.update(dt, in);
+		for(int i = 0; i < properties.size(); i++) {
+			properties.get(i).update(dt, in);
 		}
 	}
 
 	public void render(Renderer renderer, Camera camera) {
-		renderer.drawColorArray(
-			(int) (bounds.getX() - camera.getX()),
-			(int) (bounds.getY() - camera.getY()),
-			cArray
-		);
+		int x = (int) (bounds.getX() - camera.getX());
+		int y = (int) (bounds.getY() - camera.getY());
+
+		if(runLength != null) {
+			renderer.drawRunLength(x, y, runLength);
+		} else {
+			renderer.drawBitmap(x, y, bitmap);
+		}
 	}
 
 	/**
@@ -83,7 +99,8 @@ public final class Sprite implements Component, Renderable {
 	 * @param tex New Sprite texture
 	 */
 	public void setTexture(Texture tex) {
-		setTexture(tex.getColorArray());
+		bitmap = tex.getBitmap();
+		runLength = tex.getRunLengthBitmap();
 	}
 
 	/**
@@ -93,7 +110,29 @@ public final class Sprite implements Component, Renderable {
 	 * @param tex New Sprite texture
 	 */
 	public void setTexture(Color[][] tex) {
-		cArray = tex;
+		setTexture(Bitmap.fromColorArray(tex));
+	}
+
+	/**
+	 * Sets the texture of this Sprite to the passed
+	 * Bitmap.
+	 *
+	 * @param tex New Sprite texture
+	 */
+	public void setTexture(Bitmap tex) {
+		bitmap = tex;
+		runLength = null;
+	}
+
+	/**
+	 * Sets the texture of this Sprite to the passed
+	 * RunLengthBitmap.
+	 *
+	 * @param tex New Sprite texture
+	 */
+	public void setTexture(RunLengthBitmap tex) {
+		bitmap = tex.getSource();
+		runLength = tex;
 	}
 
 	public String id() {
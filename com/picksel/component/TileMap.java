@@ -7,19 +7,42 @@ import com.picksel.util.Input;
 import com.picksel.util.Camera;
 
 /**
- * A map of tiled images.
+ * A map of tiled images. Tiles are drawn in square chunks,
+ * which are baked into Bitmaps the first time they're on
+ * screen. Baked chunks are kept until the memory they use
+ * goes over the chunk budget, and then the least recently
+ * drawn chunks are dropped first. Negative tile indices are
+ * left empty.<br>
+ *
+ * TileMaps made from a {@link PagedMap} stream its regions
+ * around the Camera. Tiles whose region isn't loaded yet are
+ * not drawn.
  *
  * @author Noah James Rathman
  */
 public final class TileMap implements Component, Renderable {
+	/** Default width and height of each chunk, in tiles. */
+	public static final int DEFAULT_CHUNK_SIZE = 16;
+
+	/** Default memory budget for baked chunks, in bytes. */
+	public static final long DEFAULT_CHUNK_BUDGET = 16L << 20;
+
+	//Class
 	private final String ID;
 	private TileSheet sheet;
-	private Sprite[][] tiles;
-	private Map indices;
+	private int[] tiles;
+	private PagedMap paged;
+	private int columns, rows;
 	private Bounds bounds;
 	private int layer, drawType;
 	private boolean visible;
 
+	//Chunk caching
+	private int chunkSize, chunksX, chunksY;
+	private long chunkBudget, chunkBytes;
+	private Chunk[] chunks;
+	private Chunk newest, oldest;
+
 	/**
 	 * Creates a new TileMap.
 	 *
@@ -30,36 +53,42 @@ public final class TileMap implements Component, Renderable {
 	 */
 	public TileMap(String id, TileSheet sheet, Map indices, Bounds bounds) {
 		this.sheet		= sheet;
-		this.indices	= indices;
 		this.bounds		= bounds;
+		tiles					= indices.getIndices();
+		columns				= indices.getWidth();
+		rows					= indices.getHeight();
 		ID						= id;
 		layer					= 0;
 		visible				= true;
 		drawType			= Renderable.STATIC_DRAW;
 
-		createTiles();
+		bounds.setSize(columns * sheet.getTileWidth(), rows * sheet.getTileHeight());
+		setChunkCaching(DEFAULT_CHUNK_SIZE, DEFAULT_CHUNK_BUDGET);
 	}
 
-	private void createTiles() {
-		final String TILE_ID = ID + "_tile_";
-		final int TILE_W = sheet.getTileWidth();
-		final int TILE_H = sheet.getTileHeight();
-
-		int[][] iArray = indices.getIndexArray();
-		tiles = new Sprite[iArray.length][iArray[0].length];
-		bounds.setSize(iArray.length * TILE_W, iArray[0].length * TILE_H);
-
-		int tNum = 0;
-		for(int x = 0; x < tiles.length; x++) {
-			for(int y = 0; y < tiles[0].length; y++) {
-				String tID = TILE_ID + tNum;
-				Bounds tBounds = new Bounds(x * TILE_W, y * TILE_H, TILE_W, TILE_H);
-				Color[][] cArray = sheet.getTile(iArray[x][y]);
+	/**
+	 * Creates a new TileMap which streams its tiles. Regions of
+	 * the PagedMap within one region of the screen are loaded,
+	 * and regions further away are dropped.
+	 *
+	 * @param id Identifier for this Component
+	 * @param sheet TileSheet used for this TileMap
+	 * @param indices Paged map indices for this TileMap
+	 * @param bounds Bounding box of this Component
+	 */
+	public TileMap(String id, TileSheet sheet, PagedMap indices, Bounds bounds) {
+		this.sheet		= sheet;
+		this.bounds		= bounds;
+		paged					= indices;
+		columns				= indices.getWidth();
+		rows					= indices.getHeight();
+		ID						= id;
+		layer					= 0;
+		visible				= true;
+		drawType			= Renderable.STATIC_DRAW;
 
-				tiles[x][y] = new Sprite(tID, cArray, tBounds);
-				tNum++;
-			}
-		}
+		bounds.setSize(columns * sheet.getTileWidth(), rows * sheet.getTileHeight());
+		setChunkCaching(DEFAULT_CHUNK_SIZE, DEFAULT_CHUNK_BUDGET);
 	}
 
 	/**
@@ -81,18 +110,187 @@ public final class TileMap implements Component, Renderable {
 	public void update(float dt, Input in) {}
 
 	public void render(Renderer renderer, Camera camera) {
-		for(int x = 0; x < tiles.length; x++) {
-			for(int y = 0; y < tiles[0].length; y++) {
-				Sprite tile = tiles[x][y];
-				int x1 = (int) tile.bounds().getX(), x2 = (int) (x1 + tile.bounds().getWidth());
-				int y1 = (int) tile.bounds().getY(), y2 = (int) (y1 + tile.bounds().getHeight());
-
-				if(renderer.inBounds(x1, y1) || renderer.inBounds(x1, y2) ||
-					 renderer.inBounds(x2, y1) || renderer.inBounds(x2, y2)) {
-					tile.render(renderer, camera);
+		final int TILE_W = sheet.getTileWidth();
+		final int TILE_H = sheet.getTileHeight();
+
+		int x1 = Math.max(0, Math.floorDiv(camera.getX(), TILE_W));
+		int y1 = Math.max(0, Math.floorDiv(camera.getY(), TILE_H));
+		int x2 = Math.min(columns, Math.floorDiv(camera.getX() + renderer.getWidth() - 1, TILE_W) + 1);
+		int y2 = Math.min(rows, Math.floorDiv(camera.getY() + renderer.getHeight() - 1, TILE_H) + 1);
+
+		if(paged != null) {
+			int margin = paged.getRegionSize();
+			paged.request(x1 - margin, y1 - margin, x2 + margin, y2 + margin);
+		}
+
+		if(chunkSize > 0) {
+			renderChunks(renderer, camera);
+			return;
+		}
+
+		for(int y = y1; y < y2; y++) {
+			for(int x = x1; x < x2; x++) {
+				int index = tile(x, y);
+				if(index < 0) continue;
+
+				renderer.drawBitmap(x * TILE_W - camera.getX(), y * TILE_H - camera.getY(), sheet.getTileBitmap(index));
+			}
+		}
+	}
+
+	private int tile(int x, int y) {
+		return paged != null ? paged.getIndex(x, y) : tiles[y * columns + x];
+	}
+
+	private void renderChunks(Renderer renderer, Camera camera) {
+		final int CHUNK_W = chunkSize * sheet.getTileWidth();
+		final int CHUNK_H = chunkSize * sheet.getTileHeight();
+
+		int x1 = Math.max(0, Math.floorDiv(camera.getX(), CHUNK_W));
+		int y1 = Math.max(0, Math.floorDiv(camera.getY(), CHUNK_H));
+		int x2 = Math.min(chunksX, Math.floorDiv(camera.getX() + renderer.getWidth() - 1, CHUNK_W) + 1);
+		int y2 = Math.min(chunksY, Math.floorDiv(camera.getY() + renderer.getHeight() - 1, CHUNK_H) + 1);
+
+		for(int y = y1; y < y2; y++) {
+			for(int x = x1; x < x2; x++) {
+				Bitmap chunk = chunk(x, y);
+				if(chunk != null) renderer.drawBitmap(x * CHUNK_W - camera.getX(), y * CHUNK_H - camera.getY(), chunk);
+			}
+		}
+	}
+
+	private Bitmap chunk(int cX, int cY) {
+		int index = cY * chunksX + cX;
+		Chunk c = chunks[index];
+
+		if(c == null) {
+			Bitmap bitmap = bake(cX, cY);
+			if(bitmap == null) return null;
+
+			c = new Chunk(index, bitmap);
+			chunks[index] = c;
+			chunkBytes += c.bytes;
+		} else {
+			unlink(c);
+		}
+
+		c.next = newest;
+		if(newest != null) newest.prev = c;
+		newest = c;
+		if(oldest == null) oldest = c;
+
+		while(chunkBytes > chunkBudget && oldest != c) {
+			Chunk old = oldest;
+
+			unlink(old);
+			chunks[old.index] = null;
+			chunkBytes -= old.bytes;
+		}
+
+		return c.bitmap;
+	}
+
+	private void unlink(Chunk c) {
+		if(c.prev != null) c.prev.next = c.next;
+		else newest = c.next;
+
+		if(c.next != null) c.next.prev = c.prev;
+		else oldest = c.prev;
+
+		c.prev = null;
+		c.next = null;
+	}
+
+	private Bitmap bake(int cX, int cY) {
+		final int TILE_W = sheet.getTileWidth();
+		final int TILE_H = sheet.getTileHeight();
+
+		int x1 = cX * chunkSize, x2 = Math.min(columns, x1 + chunkSize);
+		int y1 = cY * chunkSize, y2 = Math.min(rows, y1 + chunkSize);
+
+		if(paged != null) {
+			final int REGION = paged.getRegionSize();
+
+			for(int y = y1; y < y2; y += REGION - y % REGION) {
+				for(int x = x1; x < x2; x += REGION - x % REGION) {
+					if(!paged.isLoaded(x, y)) return null;
 				}
 			}
 		}
+
+		int width = (x2 - x1) * TILE_W;
+		int[] pixels = new int[width * (y2 - y1) * TILE_H];
+
+		for(int y = y1; y < y2; y++) {
+			for(int x = x1; x < x2; x++) {
+				int index = tile(x, y);
+				if(index < 0) continue;
+
+				Bitmap tile = sheet.getTileBitmap(index);
+				int src = tile.getOffset();
+				int dst = (y - y1) * TILE_H * width + (x - x1) * TILE_W;
+
+				for(int row = 0; row < TILE_H; row++) {
+					System.arraycopy(tile.getPixels(), src + row * tile.getStride(), pixels, dst + row * width, TILE_W);
+				}
+			}
+		}
+
+		return new Bitmap(pixels, width, (y2 - y1) * TILE_H);
+	}
+
+	/**
+	 * Sets how tiles are grouped into baked chunks, and how much
+	 * memory baked chunks may use. Every baked chunk is dropped.
+	 * A budget smaller than the chunks on screen still works,
+	 * but chunks are then baked again every frame.
+	 *
+	 * @param chunkSize Width and height of each chunk in tiles,
+	 * or {@code 0} to draw each tile on its own
+	 * @param budget Memory budget for baked chunks, in bytes
+	 */
+	public void setChunkCaching(int chunkSize, long budget) {
+		this.chunkSize = Math.max(0, chunkSize);
+		chunkBudget = budget;
+		chunkBytes = 0;
+		newest = null;
+		oldest = null;
+
+		if(this.chunkSize > 0) {
+			chunksX = (columns + this.chunkSize - 1) / this.chunkSize;
+			chunksY = (rows + this.chunkSize - 1) / this.chunkSize;
+			chunks = new Chunk[chunksX * chunksY];
+		} else {
+			chunks = null;
+		}
+	}
+
+	/**
+	 * Gets the width and height of each baked chunk.
+	 *
+	 * @return Chunk size in tiles, or {@code 0} if tiles are
+	 * drawn on their own
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * Gets the memory budget for baked chunks.
+	 *
+	 * @return Chunk budget in bytes
+	 */
+	public long getChunkBudget() {
+		return chunkBudget;
+	}
+
+	/**
+	 * Gets the memory used by the currently baked chunks.
+	 *
+	 * @return Baked chunk memory in bytes
+	 */
+	public long getChunkBytes() {
+		return chunkBytes;
 	}
 
 	public String id() {
@@ -126,4 +324,20 @@ public final class TileMap implements Component, Renderable {
 	public Bounds bounds() {
 		return bounds;
 	}
+
+	/**
+	 * Baked chunk, linked from most to least recently drawn.
+	 */
+	private static final class Chunk {
+		private final int index;
+		private final Bitmap bitmap;
+		private final long bytes;
+		private Chunk prev, next;
+
+		private Chunk(int index, Bitmap bitmap) {
+			this.index = index;
+			this.bitmap = bitmap;
+			bytes = 4L * bitmap.getWidth() * bitmap.getHeight() + bitmap.getHeight();
+		}
+	}
 }
\ No newline at end of file
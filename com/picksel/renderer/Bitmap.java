@@ -0,0 +1,300 @@
+package com.picksel.renderer;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+
+import com.picksel.util.VersionInfo;
+
+/**
+ * A block of packed ARGB pixels stored row-major, which the
+ * Renderer can blit directly. Each row is classified as fully
+ * transparent, fully opaque or mixed so the Renderer can skip
+ * or copy whole rows instead of blending every pixel.<br>
+ *
+ * A Bitmap can also be a view of a rectangle inside another
+ * Bitmap, created with {@link #view(int, int, int, int)}. Views
+ * share their parent's pixels, so pixel {@code (x, y)} is at
+ * {@code getOffset() + y * getStride() + x}.<br>
+ *
+ * <b>Note:</b> if the pixels are changed after creation,
+ * {@link #classifyRows()} must be called before the next draw.
+ * It also counts the change, which is how dirty rectangle
+ * tracking notices the Bitmap is drawn differently.
+ *
+ * @author Noah James Rathman
+ */
+@VersionInfo(
+	version				= "1.0",
+	releaseDate		= "",
+	since					= "1.0",
+	contributors	= {"Noah J Rathman"}
+)
+public final class Bitmap {
+	/** Row type where every pixel has an alpha of {@code 0}. */
+	public static final byte ROW_TRANSPARENT = 0;
+
+	/** Row type where every pixel has an alpha of {@code 255}. */
+	public static final byte ROW_OPAQUE = 1;
+
+	/** Row type with at least one partially transparent pixel. */
+	public static final byte ROW_MIXED = 2;
+
+	/**
+	 * Creates a new Bitmap from the passed column-major 2D
+	 * Color array.
+	 *
+	 * @param colors 2D Color array being converted
+	 * @return Bitmap holding the same pixels
+	 */
+	public static Bitmap fromColorArray(Color[][] colors) {
+		int w = colors.length;
+		int h = colors[0].length;
+		int[] pixels = new int[w * h];
+
+		for(int x = 0; x < w; x++) {
+			Color[] column = colors[x];
+
+			for(int y = 0; y < h; y++) {
+				pixels[y * w + x] = column[y].intValue();
+			}
+		}
+
+		return new Bitmap(pixels, w, h);
+	}
+
+	/**
+	 * Creates a new Bitmap from the passed image. Common image
+	 * types are copied straight from the image's raster, and
+	 * every other type is converted with one bulk
+	 * {@link BufferedImage#getRGB(int, int, int, int, int[], int, int)}
+	 * call.
+	 *
+	 * @param image Image being converted
+	 * @return Bitmap holding the same pixels
+	 */
+	public static Bitmap fromImage(BufferedImage image) {
+		int w = image.getWidth();
+		int h = image.getHeight();
+		int[] pixels = new int[w * h];
+		WritableRaster raster = image.getRaster();
+		int type = image.getColorModel().getColorSpace().isCS_sRGB() ? image.getType() : BufferedImage.TYPE_CUSTOM;
+
+		switch(type) {
+			case BufferedImage.TYPE_INT_ARGB:
+				raster.getDataElements(0, 0, w, h, pixels);
+				break;
+
+			case BufferedImage.TYPE_INT_RGB:
+				raster.getDataElements(0, 0, w, h, pixels);
+
+				for(int i = 0; i < pixels.length; i++) {
+					pixels[i] |= 0xff000000;
+				}
+				break;
+
+			case BufferedImage.TYPE_4BYTE_ABGR: {
+				byte[] data = (byte[]) raster.getDataElements(0, 0, w, h, null);
+
+				for(int i = 0, j = 0; i < pixels.length; i++, j += 4) {
+					pixels[i] = (data[j + 3] & 0xff) << 24 | (data[j] & 0xff) << 16 | (data[j + 1] & 0xff) << 8 | (data[j + 2] & 0xff);
+				}
+				break;
+			}
+
+			case BufferedImage.TYPE_3BYTE_BGR: {
+				byte[] data = (byte[]) raster.getDataElements(0, 0, w, h, null);
+
+				for(int i = 0, j = 0; i < pixels.length; i++, j += 3) {
+					pixels[i] = 0xff000000 | (data[j] & 0xff) << 16 | (data[j + 1] & 0xff) << 8 | (data[j + 2] & 0xff);
+				}
+				break;
+			}
+
+			default:
+				image.getRGB(0, 0, w, h, pixels, 0, w);
+		}
+
+		return new Bitmap(pixels, w, h);
+	}
+
+	//Class
+	private final int[] pixels;
+	private final int offset, stride, width, height;
+	private final byte[] rows;
+	private int modCount;
+
+	/**
+	 * Creates a new fully transparent Bitmap.
+	 *
+	 * @param width Horizontal size
+	 * @param height Vertical size
+	 */
+	public Bitmap(int width, int height) {
+		this(new int[width * height], width, height);
+	}
+
+	/**
+	 * Creates a new Bitmap which uses the passed pixel array.
+	 * The array is not copied.
+	 *
+	 * @param pixels Row-major packed ARGB pixels
+	 * @param width Horizontal size
+	 * @param height Vertical size
+	 */
+	public Bitmap(int[] pixels, int width, int height) {
+		this(pixels, 0, width, width, height);
+
+		if(pixels.length < width * height) {
+			throw new IllegalArgumentException("Pixel array is smaller than " + width + "x" + height + ".");
+		}
+
+		classifyRows();
+	}
+
+	private Bitmap(int[] pixels, int offset, int stride, int width, int height) {
+		this.pixels = pixels;
+		this.offset = offset;
+		this.stride = stride;
+		this.width = width;
+		this.height = height;
+		rows = new byte[height];
+	}
+
+	/**
+	 * Creates a Bitmap which shows the passed rectangle of this
+	 * Bitmap. No pixels are copied, so changes to either Bitmap
+	 * show in both once their rows are classified again.
+	 *
+	 * @param x Left edge of the rectangle
+	 * @param y Top edge of the rectangle
+	 * @param width Horizontal size of the rectangle
+	 * @param height Vertical size of the rectangle
+	 * @return Bitmap view of the rectangle
+	 */
+	public Bitmap view(int x, int y, int width, int height) {
+		if(x < 0 || y < 0 || width < 0 || height < 0 || x + width > this.width || y + height > this.height) {
+			throw new IllegalArgumentException("View " + width + "x" + height + " at (" + x + ", " + y + ") is outside this Bitmap.");
+		}
+
+		Bitmap view = new Bitmap(pixels, offset + y * stride + x, stride, width, height);
+		view.classifyRows();
+
+		return view;
+	}
+
+	/**
+	 * Recalculates the type of every row, and counts a change to
+	 * this Bitmap. Must be called after this Bitmap's pixels are
+	 * changed. Rows of a Bitmap with no width are always
+	 * {@link #ROW_TRANSPARENT}.
+	 */
+	public void classifyRows() {
+		modCount++;
+
+		if(width == 0) return;
+
+		for(int y = 0; y < height; y++) {
+			int row = offset + y * stride;
+			int first = pixels[row] >>> 24;
+			byte type = first == 255 ? ROW_OPAQUE : first == 0 ? ROW_TRANSPARENT : ROW_MIXED;
+
+			for(int x = 1; x < width && type != ROW_MIXED; x++) {
+				int a = pixels[row + x] >>> 24;
+
+				if(a != first) type = ROW_MIXED;
+			}
+
+			rows[y] = type;
+		}
+	}
+
+	/**
+	 * Gets the packed ARGB pixels of this Bitmap, stored row-major
+	 * ({@code getOffset() + y * getStride() + x}). Views return
+	 * their parent's whole array.
+	 *
+	 * @return Bitmap pixel array
+	 */
+	public int[] getPixels() {
+		return pixels;
+	}
+
+	/**
+	 * Gets how many times {@link #classifyRows()} was called on
+	 * this Bitmap, including once when it was created.
+	 *
+	 * @return Modification count
+	 */
+	public int getModCount() {
+		return modCount;
+	}
+
+	/**
+	 * Gets the index of this Bitmap's top left pixel in its
+	 * pixel array.
+	 *
+	 * @return Pixel array offset
+	 */
+	public int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * Gets the distance between the start of each row in this
+	 * Bitmap's pixel array.
+	 *
+	 * @return Row stride in pixels
+	 */
+	public int getStride() {
+		return stride;
+	}
+
+	/**
+	 * Gets the type of the passed row.
+	 *
+	 * @param y Row index
+	 * @return {@link #ROW_TRANSPARENT}, {@link #ROW_OPAQUE} or
+	 * {@link #ROW_MIXED}
+	 */
+	public byte getRowType(int y) {
+		return rows[y];
+	}
+
+	/**
+	 * Gets the width of this Bitmap.
+	 *
+	 * @return Horizontal size
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Gets the height of this Bitmap.
+	 *
+	 * @return Vertical size
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Creates a column-major 2D Color array holding the same
+	 * pixels as this Bitmap.
+	 *
+	 * @return Bitmap as 2D Color array
+	 */
+	public Color[][] toColorArray() {
+		Color[][] colors = new Color[width][height];
+
+		for(int y = 0; y < height; y++) {
+			int row = offset + y * stride;
+
+			for(int x = 0; x < width; x++) {
+				colors[x][y] = new Color(pixels[row + x]);
+			}
+		}
+
+		return colors;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,254 @@
+package com.picksel.renderer;
+
+import com.picksel.util.VersionInfo;
+
+/**
+ * Blend kernels which work on packed ARGB {@code int}
+ * values. Unlike {@link Color#blend(Color)}, these never
+ * create Objects, and are used for every pixel the
+ * Renderer draws.<br>
+ *
+ * <b>Note:</b> the resulting alpha of every mode except
+ * {@link #REPLACE} is the sum of both alpha channels,
+ * matching {@link Color#blend(Color)}.
+ *
+ * @author Noah James Rathman
+ */
+@VersionInfo(
+	version				= "1.0",
+	releaseDate		= "",
+	since					= "1.0",
+	contributors	= {"Noah J Rathman"}
+)
+public final class Blend {
+	/** Source is drawn over the destination based on its alpha. */
+	public static final int SRC_OVER = 0;
+
+	/** Source, scaled by its alpha, is added to the destination. */
+	public static final int ADDITIVE = 1;
+
+	/** Destination is multiplied by the source, scaled by its alpha. */
+	public static final int MULTIPLY = 2;
+
+	/** Source replaces the destination, ignoring its alpha. */
+	public static final int REPLACE = 3;
+
+	/**
+	 * Only the coverage of the source is drawn, into the alpha
+	 * channel. Used to build a {@link StaticLayer}.
+	 */
+	static final int LAYER = -1;
+
+	private Blend() {}
+
+	/**
+	 * Blends the passed source pixel into the passed destination
+	 * pixel with the passed blend mode. Unrecognized modes are
+	 * treated as {@link #SRC_OVER}.
+	 *
+	 * @param mode Blend mode used
+	 * @param dst Destination ARGB pixel
+	 * @param src Source ARGB pixel
+	 * @return Resulting ARGB pixel
+	 */
+	public static int apply(int mode, int dst, int src) {
+		switch(mode) {
+			case ADDITIVE:
+				return additive(dst, src);
+
+			case MULTIPLY:
+				return multiply(dst, src);
+
+			case REPLACE:
+				return src;
+
+			case LAYER:
+				return layerOver(dst, src);
+
+			default:
+				return srcOver(dst, src);
+		}
+	}
+
+	/**
+	 * Tests if the passed source pixel leaves the destination
+	 * unchanged under the passed blend mode.
+	 *
+	 * @param mode Blend mode used
+	 * @param src Source ARGB pixel
+	 * @return {@code True} if drawing {@code src} does nothing,
+	 * {@code false} otherwise.
+	 */
+	public static boolean isNoOp(int mode, int src) {
+		return mode != REPLACE && (src >>> 24) == 0;
+	}
+
+	/**
+	 * Tests if the passed source pixel fully replaces the
+	 * destination under the passed blend mode.
+	 *
+	 * @param mode Blend mode used
+	 * @param src Source ARGB pixel
+	 * @return {@code True} if drawing {@code src} is a plain
+	 * copy, {@code false} otherwise.
+	 */
+	public static boolean isCopy(int mode, int src) {
+		return mode == REPLACE || (isOver(mode) && (src >>> 24) == 255);
+	}
+
+	/**
+	 * Tests if the passed mode draws sources over the
+	 * destination, so opaque sources can be copied.
+	 *
+	 * @param mode Blend mode used
+	 * @return {@code True} for {@link #SRC_OVER} and
+	 * {@link #LAYER}, {@code false} otherwise.
+	 */
+	static boolean isOver(int mode) {
+		return mode == SRC_OVER || mode == LAYER;
+	}
+
+	/**
+	 * Draws the source pixel over the destination pixel
+	 * based on the source alpha.
+	 *
+	 * @param dst Destination ARGB pixel
+	 * @param src Source ARGB pixel
+	 * @return Resulting ARGB pixel
+	 */
+	public static int srcOver(int dst, int src) {
+		int a = src >>> 24;
+
+		if(a == 0) return dst;
+		if(a == 255) return src;
+
+		int ia = 255 - a;
+		int rb = (dst & 0xff00ff) * ia + (src & 0xff00ff) * a + 0x800080;
+		int g = (dst & 0x00ff00) * ia + (src & 0x00ff00) * a + 0x008000;
+
+		rb = ((rb + ((rb >>> 8) & 0xff00ff)) >>> 8) & 0xff00ff;
+		g = ((g + ((g >>> 8) & 0x00ff00)) >>> 8) & 0x00ff00;
+
+		return alpha(dst, a) | rb | g;
+	}
+
+	/**
+	 * Adds the source pixel, scaled by its alpha, to the
+	 * destination pixel. Channels are clamped to {@code 255}.
+	 *
+	 * @param dst Destination ARGB pixel
+	 * @param src Source ARGB pixel
+	 * @return Resulting ARGB pixel
+	 */
+	public static int additive(int dst, int src) {
+		int a = src >>> 24;
+
+		if(a == 0) return dst;
+
+		int rb = src & 0xff00ff;
+		int g = src & 0x00ff00;
+
+		if(a != 255) {
+			rb = rb * a + 0x800080;
+			g = g * a + 0x008000;
+			rb = ((rb + ((rb >>> 8) & 0xff00ff)) >>> 8) & 0xff00ff;
+			g = ((g + ((g >>> 8) & 0x00ff00)) >>> 8) & 0x00ff00;
+		}
+
+		rb += dst & 0xff00ff;
+		g += dst & 0x00ff00;
+
+		int rbOver = rb & 0x1000100;
+		int gOver = g & 0x10000;
+
+		rb = (rb | (rbOver - (rbOver >>> 8))) & 0xff00ff;
+		g = (g | (gOver - (gOver >>> 8))) & 0x00ff00;
+
+		return alpha(dst, a) | rb | g;
+	}
+
+	/**
+	 * Multiplies the destination pixel by the source pixel.
+	 * The source is faded towards white based on its alpha
+	 * before multiplying.
+	 *
+	 * @param dst Destination ARGB pixel
+	 * @param src Source ARGB pixel
+	 * @return Resulting ARGB pixel
+	 */
+	public static int multiply(int dst, int src) {
+		int a = src >>> 24;
+
+		if(a == 0) return dst;
+
+		int f = srcOver(0xffffffff, src);
+		int r = mul255((dst >> 16) & 0xff, (f >> 16) & 0xff);
+		int g = mul255((dst >> 8) & 0xff, (f >> 8) & 0xff);
+		int b = mul255(dst & 0xff, f & 0xff);
+
+		return alpha(dst, a) | (r << 16) | (g << 8) | b;
+	}
+
+	/**
+	 * Adds the coverage of the source pixel to the coverage
+	 * held in the destination's alpha channel. Unlike the
+	 * summed alpha of {@link #srcOver(int, int)}, this is how
+	 * much of whatever lies under both pixels still shows
+	 * through, inverted.
+	 *
+	 * @param dst Destination coverage pixel
+	 * @param src Source ARGB pixel
+	 * @return Resulting coverage pixel
+	 */
+	static int layerOver(int dst, int src) {
+		int a = src >>> 24;
+
+		if(a == 0) return dst;
+		if(a == 255) return 0xff000000;
+
+		return (a + mul255(dst >>> 24, 255 - a)) << 24;
+	}
+
+	/**
+	 * Draws a layer pixel over the destination pixel. The layer
+	 * pixel holds the sources drawn with {@link #srcOver(int, int)}
+	 * over transparent black, and {@code coverage} their combined
+	 * coverage from {@link #layerOver(int, int)}. The result is
+	 * the same as drawing each source, give or take rounding.
+	 *
+	 * @param dst Destination ARGB pixel
+	 * @param src Layer ARGB pixel
+	 * @param coverage Layer coverage, from {@code 0} to
+	 * {@code 255}
+	 * @return Resulting ARGB pixel
+	 */
+	static int composite(int dst, int src, int coverage) {
+		int a = src >>> 24;
+
+		if(coverage == 255) return alpha(dst, a) | (src & 0xffffff);
+
+		int ia = 255 - coverage;
+		int rb = (dst & 0xff00ff) * ia + 0x800080;
+		int g = (dst & 0x00ff00) * ia + 0x008000;
+
+		rb = (((rb + ((rb >>> 8) & 0xff00ff)) >>> 8) & 0xff00ff) + (src & 0xff00ff);
+		g = (((g + ((g >>> 8) & 0x00ff00)) >>> 8) & 0x00ff00) + (src & 0x00ff00);
+
+		int rbOver = rb & 0x1000100;
+		int gOver = g & 0x10000;
+
+		rb = (rb | (rbOver - (rbOver >>> 8))) & 0xff00ff;
+		g = (g | (gOver - (gOver >>> 8))) & 0x00ff00;
+
+		return alpha(dst, a) | rb | g;
+	}
+
+	private static int mul255(int a, int b) {
+		int t = a * b + 128;
+		return (t + (t >> 8)) >> 8;
+	}
+
+	private static int alpha(int dst, int a) {
+		return Math.min(255, (dst >>> 24) + a) << 24;
+	}
+}
\ No newline at end of file
@@ -72,11 +72,6 @@ public final class Color {
 		return adjustChannel((int) val);
 	}
 
-	private static long intToLong(int iHex) {
-		String sHex = Integer.toHexString(iHex);
-		return Long.decode("0x" + sHex);
-	}
-
 	/**
 	 * Generates a random solid color.
 	 *
@@ -99,18 +94,7 @@ public final class Color {
 	 * @return 2D array of image pixels
 	 */
 	public static Color[][] toColorArray(BufferedImage img) {
-		int w = img.getWidth();
-		int h = img.getHeight();
-		Color[][] arr = new Color[w][h];
-
-		for(int x = 0; x < w; x++) {
-			for(int y = 0; y < h; y++) {
-				int rgb = img.getRGB(x, y);
-				arr[x][y] = new Color(rgb);
-			}
-		}
-
-		return arr;
+		return Bitmap.fromImage(img).toColorArray();
 	}
 
 	//Class
@@ -167,7 +151,10 @@ public final class Color {
 	 * @param hex Integer hexadecimal code
 	 */
 	public Color(int hex) {
-		this(intToLong(hex));
+		a = hex >>> 24;
+		r = (hex >> 16) & 0xff;
+		g = (hex >> 8) & 0xff;
+		b = hex & 0xff;
 	}
 
 	/**
@@ -0,0 +1,201 @@
+package com.picksel.renderer;
+
+import com.picksel.util.VersionInfo;
+
+/**
+ * The parts of the screen which changed since the last frame,
+ * stored as a small set of rectangles. Overlapping rectangles
+ * are merged, and once {@link #MAX_RECTS} is reached new
+ * rectangles are merged into whichever rectangle grows the
+ * least.
+ *
+ * @author Noah James Rathman
+ */
+@VersionInfo(
+	version				= "1.0",
+	releaseDate		= "",
+	since					= "1.0",
+	contributors	= {"Noah J Rathman"}
+)
+public final class DirtyRegion {
+	/** The most rectangles a DirtyRegion holds. */
+	public static final int MAX_RECTS = 16;
+
+	private final int[] x1, y1, x2, y2;
+	private final int width, height;
+	private int size;
+
+	/**
+	 * Creates a new empty DirtyRegion for a screen of the passed
+	 * size.
+	 *
+	 * @param width Screen width
+	 * @param height Screen height
+	 */
+	DirtyRegion(int width, int height) {
+		x1 = new int[MAX_RECTS];
+		y1 = new int[MAX_RECTS];
+		x2 = new int[MAX_RECTS];
+		y2 = new int[MAX_RECTS];
+
+		this.width = width;
+		this.height = height;
+		size = 0;
+	}
+
+	/**
+	 * Removes every rectangle.
+	 */
+	void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Marks the whole screen as changed.
+	 */
+	void addAll() {
+		size = 0;
+		add(0, 0, width, height);
+	}
+
+	/**
+	 * Marks the passed rectangle as changed. The rectangle is
+	 * clipped to the screen.
+	 *
+	 * @param x Horizontal position
+	 * @param y Vertical position
+	 * @param w Horizontal size
+	 * @param h Vertical size
+	 */
+	void add(int x, int y, int w, int h) {
+		int nx1 = Math.max(x, 0), nx2 = Math.min(x + w, width);
+		int ny1 = Math.max(y, 0), ny2 = Math.min(y + h, height);
+
+		if(nx1 >= nx2 || ny1 >= ny2) return;
+
+		boolean merged = true;
+		while(merged) {
+			merged = false;
+
+			for(int i = 0; i < size; i++) {
+				if(nx1 <= x2[i] && x1[i] <= nx2 && ny1 <= y2[i] && y1[i] <= ny2) {
+					nx1 = Math.min(nx1, x1[i]);
+					ny1 = Math.min(ny1, y1[i]);
+					nx2 = Math.max(nx2, x2[i]);
+					ny2 = Math.max(ny2, y2[i]);
+
+					remove(i);
+					merged = true;
+					break;
+				}
+			}
+
+			if(!merged && size == MAX_RECTS) {
+				int best = 0;
+				long bestGrowth = Long.MAX_VALUE;
+
+				for(int i = 0; i < size; i++) {
+					long union = (long) (Math.max(nx2, x2[i]) - Math.min(nx1, x1[i])) *
+											 (Math.max(ny2, y2[i]) - Math.min(ny1, y1[i]));
+					long growth = union - (long) (x2[i] - x1[i]) * (y2[i] - y1[i]);
+
+					if(growth < bestGrowth) {
+						bestGrowth = growth;
+						best = i;
+					}
+				}
+
+				nx1 = Math.min(nx1, x1[best]);
+				ny1 = Math.min(ny1, y1[best]);
+				nx2 = Math.max(nx2, x2[best]);
+				ny2 = Math.max(ny2, y2[best]);
+
+				remove(best);
+				merged = true;
+			}
+		}
+
+		x1[size] = nx1;
+		y1[size] = ny1;
+		x2[size] = nx2;
+		y2[size] = ny2;
+		size++;
+	}
+
+	private void remove(int i) {
+		size--;
+		x1[i] = x1[size];
+		y1[i] = y1[size];
+		x2[i] = x2[size];
+		y2[i] = y2[size];
+	}
+
+	/**
+	 * Tests if nothing changed.
+	 *
+	 * @return {@code True} if this region has no rectangles,
+	 * {@code false} otherwise.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Tests if the whole screen changed.
+	 *
+	 * @return {@code True} if one rectangle covers the screen,
+	 * {@code false} otherwise.
+	 */
+	public boolean isFull() {
+		return size == 1 && x1[0] == 0 && y1[0] == 0 && x2[0] == width && y2[0] == height;
+	}
+
+	/**
+	 * Gets the amount of rectangles in this region.
+	 *
+	 * @return Rectangle count
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the left edge of the passed rectangle.
+	 *
+	 * @param i Rectangle index
+	 * @return Horizontal position
+	 */
+	public int getX(int i) {
+		return x1[i];
+	}
+
+	/**
+	 * Gets the top edge of the passed rectangle.
+	 *
+	 * @param i Rectangle index
+	 * @return Vertical position
+	 */
+	public int getY(int i) {
+		return y1[i];
+	}
+
+	/**
+	 * Gets the width of the passed rectangle.
+	 *
+	 * @param i Rectangle index
+	 * @return Horizontal size
+	 */
+	public int getWidth(int i) {
+		return x2[i] - x1[i];
+	}
+
+	/**
+	 * Gets the height of the passed rectangle.
+	 *
+	 * @param i Rectangle index
+	 * @return Vertical size
+	 */
+	public int getHeight(int i) {
+		return y2[i] - y1[i];
+	}
+}
\ No newline at end of file
@@ -0,0 +1,358 @@
+package com.picksel.renderer;
+
+import java.util.Arrays;
+
+/**
+ * A reusable list of recorded draw commands. Commands are
+ * stored as rows of {@code int} values with one Object slot
+ * for the drawn image, so recording never allocates once the
+ * list has grown to the size of a frame. Bitmap commands keep
+ * the Bitmap's modification count in their color field, so a
+ * Bitmap changed in place doesn't match its old command. When
+ * bands are set, every command is also binned to the
+ * horizontal bands of the screen it touches.
+ *
+ * @author Noah James Rathman
+ */
+final class DrawList {
+	/** Command which sets every pixel to {@link Color#BLACK}. */
+	static final int CLEAR = 0;
+
+	/** Command recorded by {@link Renderer#setPixel(int, int, Color)}. */
+	static final int PIXEL = 1;
+
+	/** Command recorded by {@link Renderer#fillRect(int, int, int, int, Color)}. */
+	static final int FILL_RECT = 2;
+
+	/** Command recorded by {@link Renderer#drawRect(int, int, int, int, Color)}. */
+	static final int DRAW_RECT = 3;
+
+	/** Command recorded by {@link Renderer#drawColorArray(int, int, Color[][])}. */
+	static final int COLOR_ARRAY = 4;
+
+	/** Command recorded by {@link Renderer#drawBitmap(int, int, Bitmap)}. */
+	static final int BITMAP = 5;
+
+	/** Command recorded by {@link Renderer#drawRunLength(int, int, RunLengthBitmap)}. */
+	static final int RUN_LENGTH = 6;
+
+	/** Command which composites a {@link StaticLayer}. */
+	static final int LAYER = 7;
+
+	private static final int FIELDS = 7;
+	private static final int OP = 0, MODE = 1, X = 2, Y = 3, W = 4, H = 5, ARGB = 6;
+
+	private int[] data;
+	private Object[] refs;
+	private int size;
+
+	private int[][] bins;
+	private int[] binSizes;
+	private int bandHeight;
+
+	/**
+	 * Creates a new empty DrawList.
+	 */
+	DrawList() {
+		data = new int[FIELDS * 256];
+		refs = new Object[256];
+		size = 0;
+
+		setBands(0, 0);
+	}
+
+	/**
+	 * Sets the bands commands are binned to. Must only be called
+	 * while this DrawList is empty.
+	 *
+	 * @param count Amount of bands, or {@code 0} to stop binning
+	 * @param bandHeight Rows per band
+	 */
+	void setBands(int count, int bandHeight) {
+		bins = new int[count][64];
+		binSizes = new int[count];
+		this.bandHeight = bandHeight;
+	}
+
+	/**
+	 * Records a new command.
+	 *
+	 * @param op Command type
+	 * @param mode Blend mode
+	 * @param x Horizontal offset
+	 * @param y Vertical offset
+	 * @param w Horizontal size
+	 * @param h Vertical size
+	 * @param argb Packed draw color
+	 * @param ref Image drawn, or {@code null}
+	 * @return Index of the recorded command
+	 */
+	int add(int op, int mode, int x, int y, int w, int h, int argb, Object ref) {
+		if(size == refs.length) {
+			data = Arrays.copyOf(data, data.length * 2);
+			refs = Arrays.copyOf(refs, refs.length * 2);
+		}
+
+		int i = size * FIELDS;
+		data[i + OP] = op;
+		data[i + MODE] = mode;
+		data[i + X] = x;
+		data[i + Y] = y;
+		data[i + W] = w;
+		data[i + H] = h;
+		data[i + ARGB] = argb;
+		refs[size] = ref;
+
+		if(bins.length > 0 && h > 0) {
+			int b1 = Math.max(y, 0) / bandHeight;
+			int b2 = Math.min(bins.length - 1, (y + h - 1) / bandHeight);
+
+			for(int b = b1; b <= b2; b++) {
+				if(binSizes[b] == bins[b].length) bins[b] = Arrays.copyOf(bins[b], binSizes[b] * 2);
+				bins[b][binSizes[b]++] = size;
+			}
+		}
+
+		return size++;
+	}
+
+	/**
+	 * Removes every command from this DrawList. The storage is
+	 * kept for the next frame.
+	 */
+	void reset() {
+		Arrays.fill(refs, 0, size, null);
+		Arrays.fill(binSizes, 0);
+		size = 0;
+	}
+
+	/**
+	 * Gets the amount of recorded commands.
+	 *
+	 * @return Command count
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Adds the area of every command which differs from the
+	 * command at the same position in {@code previous} to the
+	 * passed DirtyRegion. Both the old and new command's area
+	 * are added, as are the areas of any extra commands. Pixels
+	 * outside the region are touched by the same commands in the
+	 * same order in both lists, so they don't need redrawing.
+	 *
+	 * @param previous Commands of the last frame
+	 * @param region Region the changed areas are added to
+	 */
+	void diff(DrawList previous, DirtyRegion region) {
+		int common = Math.min(size, previous.size);
+
+		for(int i = 0; i < common && !region.isFull(); i++) {
+			if(!sameCommand(i, previous)) {
+				addArea(i, region);
+				previous.addArea(i, region);
+			}
+		}
+
+		for(int i = common; i < size && !region.isFull(); i++) {
+			addArea(i, region);
+		}
+
+		for(int i = common; i < previous.size && !region.isFull(); i++) {
+			previous.addArea(i, region);
+		}
+	}
+
+	/**
+	 * Tests if the passed DrawList holds exactly the same
+	 * commands as this one, drawing the same images.
+	 *
+	 * @param other Compared DrawList
+	 * @return {@code True} if both lists match, {@code false}
+	 * otherwise.
+	 */
+	boolean sameAs(DrawList other) {
+		if(size != other.size) return false;
+
+		for(int i = 0; i < size; i++) {
+			if(!sameCommand(i, other)) return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Tests if every command in this DrawList draws with
+	 * {@link Blend#SRC_OVER}, so the commands can be drawn into
+	 * a {@link StaticLayer} first.
+	 *
+	 * @return {@code True} if this list can be layered,
+	 * {@code false} otherwise.
+	 */
+	boolean isLayerable() {
+		for(int i = 0; i < size; i++) {
+			int op = data[i * FIELDS + OP];
+
+			if(op == CLEAR || op == LAYER || data[i * FIELDS + MODE] != Blend.SRC_OVER) return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Finds the area every command in this DrawList touches,
+	 * clipped to a screen of the passed size.
+	 *
+	 * @param width Screen width
+	 * @param height Screen height
+	 * @param area Set to the left, top, right and bottom edges
+	 * of the area (right and bottom are exclusive)
+	 * @return {@code True} if any command touches the screen,
+	 * {@code false} otherwise.
+	 */
+	boolean area(int width, int height, int[] area) {
+		int x1 = width, y1 = height, x2 = 0, y2 = 0;
+
+		for(int i = 0; i < size * FIELDS; i += FIELDS) {
+			x1 = Math.min(x1, Math.max(0, data[i + X]));
+			y1 = Math.min(y1, Math.max(0, data[i + Y]));
+			x2 = Math.max(x2, Math.min(width, data[i + X] + data[i + W]));
+			y2 = Math.max(y2, Math.min(height, data[i + Y] + data[i + H]));
+		}
+
+		area[0] = x1;
+		area[1] = y1;
+		area[2] = x2;
+		area[3] = y2;
+
+		return x1 < x2 && y1 < y2;
+	}
+
+	/**
+	 * Records every command of the passed DrawList into this one.
+	 *
+	 * @param other Commands being copied
+	 */
+	void append(DrawList other) {
+		for(int i = 0; i < other.size; i++) {
+			int f = i * FIELDS;
+			int[] d = other.data;
+
+			add(d[f + OP], d[f + MODE], d[f + X], d[f + Y], d[f + W], d[f + H], d[f + ARGB], other.refs[i]);
+		}
+	}
+
+	private boolean sameCommand(int cmd, DrawList other) {
+		if(refs[cmd] != other.refs[cmd]) return false;
+
+		int i = cmd * FIELDS;
+		for(int f = 0; f < FIELDS; f++) {
+			if(data[i + f] != other.data[i + f]) return false;
+		}
+
+		return true;
+	}
+
+	private void addArea(int cmd, DirtyRegion region) {
+		int i = cmd * FIELDS;
+
+		if(data[i + OP] == CLEAR) {
+			region.addAll();
+		} else {
+			region.add(data[i + X], data[i + Y], data[i + W], data[i + H]);
+		}
+	}
+
+	/**
+	 * Runs every command in recorded order on the passed
+	 * Rasterizer.
+	 *
+	 * @param r Target Rasterizer
+	 */
+	void executeAll(Rasterizer r) {
+		for(int i = 0; i < size; i++) {
+			execute(i, r);
+		}
+	}
+
+	/**
+	 * Runs every command in recorded order on the passed
+	 * Rasterizer, using the passed blend mode instead of the
+	 * recorded ones.
+	 *
+	 * @param r Target Rasterizer
+	 * @param mode Blend mode used by every command
+	 */
+	void executeAll(Rasterizer r, int mode) {
+		for(int i = 0; i < size; i++) {
+			execute(i, r, mode);
+		}
+	}
+
+	/**
+	 * Runs every command binned to the passed band, in recorded
+	 * order, on the passed Rasterizer.
+	 *
+	 * @param band Band index
+	 * @param r Target Rasterizer
+	 */
+	void executeBand(int band, Rasterizer r) {
+		int[] bin = bins[band];
+
+		for(int i = 0; i < binSizes[band]; i++) {
+			execute(bin[i], r);
+		}
+	}
+
+	/**
+	 * Runs the passed command on the passed Rasterizer.
+	 *
+	 * @param cmd Command index
+	 * @param r Target Rasterizer
+	 */
+	void execute(int cmd, Rasterizer r) {
+		execute(cmd, r, data[cmd * FIELDS + MODE]);
+	}
+
+	private void execute(int cmd, Rasterizer r, int mode) {
+		int i = cmd * FIELDS;
+		int x = data[i + X], y = data[i + Y];
+		int w = data[i + W], h = data[i + H];
+
+		switch(data[i + OP]) {
+			case CLEAR:
+				r.clear(data[i + ARGB]);
+				break;
+
+			case PIXEL:
+				r.setPixel(x, y, data[i + ARGB], mode);
+				break;
+
+			case FILL_RECT:
+				r.fillRect(x, y, w, h, data[i + ARGB], mode);
+				break;
+
+			case DRAW_RECT:
+				r.drawRect(x, y, w, h, data[i + ARGB], mode);
+				break;
+
+			case COLOR_ARRAY:
+				r.drawColorArray(x, y, (Color[][]) refs[cmd], mode);
+				break;
+
+			case BITMAP:
+				r.drawBitmap(x, y, (Bitmap) refs[cmd], mode);
+				break;
+
+			case RUN_LENGTH:
+				r.drawRunLength(x, y, (RunLengthBitmap) refs[cmd], mode);
+				break;
+
+			case LAYER:
+				r.drawLayer((StaticLayer) refs[cmd]);
+				break;
+		}
+	}
+}
\ No newline at end of file
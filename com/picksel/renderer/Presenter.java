@@ -0,0 +1,274 @@
+package com.picksel.renderer;
+
+import java.awt.Canvas;
+import java.awt.Container;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Window;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.function.Consumer;
+
+import com.picksel.util.VersionInfo;
+
+/**
+ * Shows finished frames on a Canvas. Each frame is uploaded to
+ * an accelerated VolatileImage, which is then drawn to the
+ * Canvas scaled by the largest whole number that fits, using
+ * nearest-neighbour sampling. Any leftover space is letterboxed,
+ * and the letterbox bars are only cleared after the layout
+ * changes or the buffers are lost.<br>
+ *
+ * <b>Note:</b> when the Renderer tracks dirty rectangles, only
+ * the changed areas are uploaded, and frames where nothing
+ * changed aren't presented. Since the Canvas ignores repaint
+ * messages, the Renderer is invalidated whenever the Canvas is
+ * resized or shown, or its window is restored or brought to
+ * the front, so the whole frame is presented again. Call
+ * {@link #checkContents()} once per frame to also catch
+ * buffers which were lost without any of those events.
+ *
+ * @author Noah James Rathman
+ */
+@VersionInfo(
+	version				= "1.0",
+	releaseDate		= "",
+	since					= "1.0",
+	contributors	= {"Noah J Rathman"}
+)
+public final class Presenter implements Consumer<BufferedImage> {
+	private final Canvas canvas;
+	private final Renderer renderer;
+	private final BufferStrategy strategy;
+	private final int buffers;
+	private volatile VolatileImage frame;
+	private boolean uploadAll;
+	private volatile int scale, xOff, yOff;
+	private int canvasWidth, canvasHeight;
+	private int barClears;
+	private long presentTime, averagePresentTime;
+
+	/**
+	 * Creates a new Presenter which draws to the passed Canvas.
+	 * The Canvas must already be displayable.
+	 *
+	 * @param canvas Canvas frames are shown on
+	 * @param renderer Renderer which draws the frames
+	 * @param buffers Amount of buffers in the Canvas's
+	 * BufferStrategy
+	 */
+	public Presenter(Canvas canvas, Renderer renderer, int buffers) {
+		this.canvas = canvas;
+		this.renderer = renderer;
+		this.buffers = buffers;
+
+		canvas.setIgnoreRepaint(true);
+		canvas.createBufferStrategy(buffers);
+		strategy = canvas.getBufferStrategy();
+
+		uploadAll = true;
+		presentTime = 0L;
+		averagePresentTime = 0L;
+
+		layout();
+		listen();
+	}
+
+	private void listen() {
+		canvas.addComponentListener(new ComponentAdapter() {
+			public void componentResized(ComponentEvent e) {
+				renderer.invalidate();
+			}
+
+			public void componentShown(ComponentEvent e) {
+				renderer.invalidate();
+			}
+		});
+
+		canvas.addHierarchyListener(e -> {
+			if((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && canvas.isShowing()) {
+				renderer.invalidate();
+			}
+		});
+
+		for(Container c = canvas.getParent(); c != null; c = c.getParent()) {
+			if(c instanceof Window window) {
+				window.addWindowListener(new WindowAdapter() {
+					public void windowDeiconified(WindowEvent e) {
+						renderer.invalidate();
+					}
+
+					public void windowActivated(WindowEvent e) {
+						renderer.invalidate();
+					}
+				});
+
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Invalidates the Renderer if the Canvas's buffers lost their
+	 * contents since they were last shown, so the next frame is
+	 * presented in full even if nothing in it changed.
+	 */
+	public void checkContents() {
+		VolatileImage frame = this.frame;
+
+		if(strategy.contentsLost() || (frame != null && frame.contentsLost())) {
+			renderer.invalidate();
+		}
+	}
+
+	private void layout() {
+		int w = renderer.getWidth();
+		int h = renderer.getHeight();
+
+		canvasWidth = canvas.getWidth();
+		canvasHeight = canvas.getHeight();
+		scale = Math.max(1, Math.min(canvasWidth / w, canvasHeight / h));
+		xOff = (canvasWidth - w * scale) / 2;
+		yOff = (canvasHeight - h * scale) / 2;
+		barClears = buffers;
+	}
+
+	/**
+	 * Shows the passed frame on the Canvas.
+	 *
+	 * @param image Finished frame
+	 */
+	public void accept(BufferedImage image) {
+		long start = System.nanoTime();
+
+		if(canvas.getWidth() != canvasWidth || canvas.getHeight() != canvasHeight) {
+			layout();
+		}
+
+		do {
+			boolean restored;
+
+			do {
+				Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+				draw(g, image);
+				g.dispose();
+
+				restored = strategy.contentsRestored();
+				if(restored) barClears = buffers;
+				if(frame.contentsLost()) uploadAll = true;
+			} while(restored || uploadAll);
+
+			strategy.show();
+		} while(strategy.contentsLost());
+
+		if(barClears > 0) barClears--;
+
+		presentTime = System.nanoTime() - start;
+		averagePresentTime += (presentTime - averagePresentTime) / 16;
+	}
+
+	private void draw(Graphics2D g, BufferedImage image) {
+		int w = image.getWidth();
+		int h = image.getHeight();
+
+		validateFrame(w, h);
+		upload(image);
+
+		if(barClears > 0) {
+			g.setColor(java.awt.Color.BLACK);
+			g.fillRect(0, 0, canvasWidth, yOff);
+			g.fillRect(0, yOff + h * scale, canvasWidth, canvasHeight - yOff - h * scale);
+			g.fillRect(0, yOff, xOff, h * scale);
+			g.fillRect(xOff + w * scale, yOff, canvasWidth - xOff - w * scale, h * scale);
+		}
+
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+		g.drawImage(frame, xOff, yOff, w * scale, h * scale, null);
+	}
+
+	private void validateFrame(int w, int h) {
+		GraphicsConfiguration gc = canvas.getGraphicsConfiguration();
+
+		int state = frame == null ? VolatileImage.IMAGE_INCOMPATIBLE : frame.validate(gc);
+
+		if(state == VolatileImage.IMAGE_INCOMPATIBLE || frame.getWidth() != w || frame.getHeight() != h) {
+			if(frame != null) frame.flush();
+
+			frame = gc.createCompatibleVolatileImage(w, h);
+			uploadAll = true;
+		} else if(state == VolatileImage.IMAGE_RESTORED) {
+			uploadAll = true;
+		}
+	}
+
+	private void upload(BufferedImage image) {
+		Graphics2D g = frame.createGraphics();
+		DirtyRegion region = renderer.isDirtyTracking() ? renderer.getDirtyRegion() : null;
+
+		if(uploadAll || region == null || region.isFull()) {
+			g.drawImage(image, 0, 0, null);
+		} else {
+			for(int i = 0; i < region.size(); i++) {
+				int x1 = region.getX(i), x2 = x1 + region.getWidth(i);
+				int y1 = region.getY(i), y2 = y1 + region.getHeight(i);
+
+				g.drawImage(image, x1, y1, x2, y2, x1, y1, x2, y2, null);
+			}
+		}
+
+		g.dispose();
+		uploadAll = false;
+	}
+
+	/**
+	 * Gets the whole number each frame pixel is scaled by.
+	 *
+	 * @return Present scale
+	 */
+	public int getScale() {
+		return scale;
+	}
+
+	/**
+	 * Gets the horizontal letterbox offset of the frame.
+	 *
+	 * @return Frame X offset on the Canvas
+	 */
+	public int getXOffset() {
+		return xOff;
+	}
+
+	/**
+	 * Gets the vertical letterbox offset of the frame.
+	 *
+	 * @return Frame Y offset on the Canvas
+	 */
+	public int getYOffset() {
+		return yOff;
+	}
+
+	/**
+	 * Gets how long the last frame took to present.
+	 *
+	 * @return Present time in nanoseconds
+	 */
+	public long getPresentTime() {
+		return presentTime;
+	}
+
+	/**
+	 * Gets a running average of how long frames take to present.
+	 *
+	 * @return Average present time in nanoseconds
+	 */
+	public long getAveragePresentTime() {
+		return averagePresentTime;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,247 @@
+package com.picksel.renderer;
+
+import java.util.Arrays;
+
+/**
+ * Draws primitives into a packed ARGB pixel array, limited to
+ * a clip rectangle. The Renderer uses one Rasterizer for the
+ * whole screen, and one per band when rendering in parallel,
+ * so every primitive gives the same pixels no matter how the
+ * screen is split.
+ *
+ * @author Noah James Rathman
+ */
+final class Rasterizer {
+	private final int[] pixels;
+	private final int stride, origin;
+	private int clipX1, clipY1, clipX2, clipY2;
+
+	/**
+	 * Creates a new Rasterizer.
+	 *
+	 * @param pixels Row-major packed ARGB target pixels
+	 * @param stride Amount of pixels per row
+	 * @param x1 Left edge of the clip
+	 * @param y1 Top edge of the clip
+	 * @param x2 Right edge of the clip (exclusive)
+	 * @param y2 Bottom edge of the clip (exclusive)
+	 */
+	Rasterizer(int[] pixels, int stride, int x1, int y1, int x2, int y2) {
+		this(pixels, stride, 0, 0, x1, y1, x2, y2);
+	}
+
+	/**
+	 * Creates a new Rasterizer whose pixel array starts at the
+	 * passed screen position instead of the top left corner.
+	 * Every draw call still uses screen coordinates.
+	 *
+	 * @param pixels Row-major packed ARGB target pixels
+	 * @param stride Amount of pixels per row
+	 * @param originX Screen X position of the first pixel
+	 * @param originY Screen Y position of the first pixel
+	 * @param x1 Left edge of the clip
+	 * @param y1 Top edge of the clip
+	 * @param x2 Right edge of the clip (exclusive)
+	 * @param y2 Bottom edge of the clip (exclusive)
+	 */
+	Rasterizer(int[] pixels, int stride, int originX, int originY, int x1, int y1, int x2, int y2) {
+		this.pixels = pixels;
+		this.stride = stride;
+		origin = -(originY * stride + originX);
+
+		setClip(x1, y1, x2, y2);
+	}
+
+	/**
+	 * Sets the clip rectangle of this Rasterizer.
+	 *
+	 * @param x1 Left edge of the clip
+	 * @param y1 Top edge of the clip
+	 * @param x2 Right edge of the clip (exclusive)
+	 * @param y2 Bottom edge of the clip (exclusive)
+	 */
+	void setClip(int x1, int y1, int x2, int y2) {
+		clipX1 = x1;
+		clipY1 = y1;
+		clipX2 = x2;
+		clipY2 = y2;
+	}
+
+	/**
+	 * Sets every pixel inside the clip to the passed color.
+	 *
+	 * @param argb Packed color
+	 */
+	void clear(int argb) {
+		for(int y = clipY1; y < clipY2; y++) {
+			Arrays.fill(pixels, y * stride + origin + clipX1, y * stride + origin + clipX2, argb);
+		}
+	}
+
+	private boolean inClip(int x, int y) {
+		return x >= clipX1 && x < clipX2 && y >= clipY1 && y < clipY2;
+	}
+
+	private void blendSpan(int from, int to, int argb, int mode) {
+		if(from >= to || Blend.isNoOp(mode, argb)) return;
+
+		if(Blend.isCopy(mode, argb)) {
+			Arrays.fill(pixels, from, to, argb);
+		} else {
+			for(int i = from; i < to; i++) {
+				pixels[i] = Blend.apply(mode, pixels[i], argb);
+			}
+		}
+	}
+
+	/** Blends a single pixel. See {@link Renderer#setPixel(int, int, Color)}. */
+	void setPixel(int x, int y, int argb, int mode) {
+		if(inClip(x, y)) {
+			int i = y * stride + origin + x;
+			pixels[i] = Blend.apply(mode, pixels[i], argb);
+		}
+	}
+
+	/** Blends a rectangle. See {@link Renderer#fillRect(int, int, int, int, Color)}. */
+	void fillRect(int xOff, int yOff, int xSize, int ySize, int argb, int mode) {
+		int x1 = Math.max(xOff, clipX1), x2 = Math.min(xOff + xSize, clipX2);
+		int y1 = Math.max(yOff, clipY1), y2 = Math.min(yOff + ySize, clipY2);
+
+		if(x1 >= x2) return;
+
+		for(int y = y1; y < y2; y++) {
+			blendSpan(y * stride + origin + x1, y * stride + origin + x2, argb, mode);
+		}
+	}
+
+	/** Blends a rectangle outline. See {@link Renderer#drawRect(int, int, int, int, Color)}. */
+	void drawRect(int xOff, int yOff, int xSize, int ySize, int argb, int mode) {
+		if(xSize <= 0 || ySize <= 0) return;
+
+		int x1 = xOff, x2 = xOff + xSize - 1;
+		int y1 = yOff, y2 = yOff + ySize - 1;
+		int cx1 = Math.max(x1, clipX1), cx2 = Math.min(x2 + 1, clipX2);
+
+		if(y1 >= clipY1 && y1 < clipY2) blendSpan(y1 * stride + origin + cx1, y1 * stride + origin + cx2, argb, mode);
+		if(y2 != y1 && y2 >= clipY1 && y2 < clipY2) blendSpan(y2 * stride + origin + cx1, y2 * stride + origin + cx2, argb, mode);
+
+		for(int y = Math.max(y1 + 1, clipY1); y < Math.min(y2, clipY2); y++) {
+			if(x1 >= clipX1 && x1 < clipX2) setPixel(x1, y, argb, mode);
+			if(x2 != x1 && x2 >= clipX1 && x2 < clipX2) setPixel(x2, y, argb, mode);
+		}
+	}
+
+	/** Blends a 2D Color array. See {@link Renderer#drawColorArray(int, int, Color[][])}. */
+	void drawColorArray(int xOff, int yOff, Color[][] colors, int mode) {
+		int x1 = Math.max(xOff, clipX1), x2 = Math.min(xOff + colors.length, clipX2);
+		int y1 = Math.max(yOff, clipY1), y2 = Math.min(yOff + colors[0].length, clipY2);
+
+		for(int y = y1; y < y2; y++) {
+			int row = y * stride + origin;
+			int sy = y - yOff;
+
+			for(int x = x1; x < x2; x++) {
+				pixels[row + x] = Blend.apply(mode, pixels[row + x], colors[x - xOff][sy].intValue());
+			}
+		}
+	}
+
+	/** Blits a Bitmap. See {@link Renderer#drawBitmap(int, int, Bitmap)}. */
+	void drawBitmap(int xOff, int yOff, Bitmap bitmap, int mode) {
+		int w = bitmap.getWidth();
+		int x1 = Math.max(xOff, clipX1), x2 = Math.min(xOff + w, clipX2);
+		int y1 = Math.max(yOff, clipY1), y2 = Math.min(yOff + bitmap.getHeight(), clipY2);
+
+		if(x1 >= x2) return;
+
+		int[] src = bitmap.getPixels();
+		int len = x2 - x1;
+		int sx = x1 - xOff;
+
+		for(int y = y1; y < y2; y++) {
+			int sy = y - yOff;
+			byte type = bitmap.getRowType(sy);
+			int sIdx = bitmap.getOffset() + sy * bitmap.getStride() + sx;
+			int dIdx = y * stride + origin + x1;
+
+			if(mode == Blend.REPLACE || (type == Bitmap.ROW_OPAQUE && Blend.isOver(mode))) {
+				System.arraycopy(src, sIdx, pixels, dIdx, len);
+			} else if(type != Bitmap.ROW_TRANSPARENT) {
+				for(int i = 0; i < len; i++) {
+					pixels[dIdx + i] = Blend.apply(mode, pixels[dIdx + i], src[sIdx + i]);
+				}
+			}
+		}
+	}
+
+	/** Blits a RunLengthBitmap. See {@link Renderer#drawRunLength(int, int, RunLengthBitmap)}. */
+	void drawRunLength(int xOff, int yOff, RunLengthBitmap rle, int mode) {
+		if(mode == Blend.REPLACE) {
+			drawBitmap(xOff, yOff, rle.getSource(), mode);
+			return;
+		}
+
+		int x1 = Math.max(xOff, clipX1), x2 = Math.min(xOff + rle.getWidth(), clipX2);
+		int y1 = Math.max(yOff, clipY1), y2 = Math.min(yOff + rle.getHeight(), clipY2);
+
+		if(x1 >= x2) return;
+
+		int[] runs = rle.getRuns();
+		int[] data = rle.getData();
+
+		for(int y = y1; y < y2; y++) {
+			int sy = y - yOff;
+			int row = y * stride + origin;
+			int end = rle.getRowRunStart(sy + 1);
+			int d = rle.getRowDataStart(sy);
+			int x = xOff;
+
+			for(int r = rle.getRowRunStart(sy); r < end && x < x2; r++) {
+				int type = RunLengthBitmap.runType(runs[r]);
+				int len = RunLengthBitmap.runLength(runs[r]);
+
+				if(type != RunLengthBitmap.RUN_TRANSPARENT) {
+					int from = Math.max(x, x1), to = Math.min(x + len, x2);
+					int s = d + from - x;
+
+					if(from < to) {
+						if(type == RunLengthBitmap.RUN_OPAQUE && Blend.isOver(mode)) {
+							System.arraycopy(data, s, pixels, row + from, to - from);
+						} else {
+							for(int i = row + from; i < row + to; i++) {
+								pixels[i] = Blend.apply(mode, pixels[i], data[s++]);
+							}
+						}
+					}
+
+					d += len;
+				}
+
+				x += len;
+			}
+		}
+	}
+
+	/** Composites a StaticLayer. See {@link StaticLayer}. */
+	void drawLayer(StaticLayer layer) {
+		int x1 = Math.max(layer.getX(), clipX1), x2 = Math.min(layer.getX() + layer.getWidth(), clipX2);
+		int y1 = Math.max(layer.getY(), clipY1), y2 = Math.min(layer.getY() + layer.getHeight(), clipY2);
+
+		if(x1 >= x2) return;
+
+		int[] src = layer.getPixels();
+		byte[] cover = layer.getCoverage();
+		int w = layer.getWidth();
+
+		for(int y = y1; y < y2; y++) {
+			int sIdx = (y - layer.getY()) * w + x1 - layer.getX();
+			int dIdx = y * stride + origin + x1;
+
+			for(int i = 0; i < x2 - x1; i++) {
+				int p = src[sIdx + i];
+
+				if(p != 0) pixels[dIdx + i] = Blend.composite(pixels[dIdx + i], p, cover[sIdx + i] & 0xff);
+			}
+		}
+	}
+}
\ No newline at end of file
@@ -2,16 +2,30 @@ package com.picksel.renderer;
 
 import static com.picksel.renderer.Renderable.*;
 
-import java.util.List;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
-import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.TreeMap;
 
+import com.picksel.component.Bounds;
 import com.picksel.util.VersionInfo;
 import com.picksel.util.Camera;
 
 /**
- * Orders render calls for a list of Renderable Objects.
+ * Orders render calls for a list of Renderable Objects.<br>
+ *
+ * <b>Note:</b> a {@link #LAYERED_SORT} Queue stores its items
+ * in one bucket per layer, kept in layer order, so it never
+ * has to sort. Items in the same layer render in the order
+ * they were added. Every Queue indexes its items by ID, so
+ * {@link #remove(String)} and {@link #get(String)} don't
+ * search. With {@link #setCulling(int)}, DYNAMIC_DRAW items
+ * are also kept in a uniform grid, and only items near the
+ * Camera are drawn. With {@link #setStaticCaching(boolean)},
+ * runs of STATIC_DRAW items are drawn into cached layers.
  *
  * @author Noah James Rathman
  */
@@ -31,10 +45,49 @@ public final class RenderQueue {
 	/** Objects will render based on their defined layer position. */
 	public static final int LAYERED_SORT = 2;
 
+	//Items covering more cells than this aren't binned
+	private static final int MAX_CELLS = 64;
+
+	//Frames a static run must stay unchanged before it's cached
+	private static final int STABLE_FRAMES = 4;
+
+	private static final Comparator<Entry> BY_ORDER = Comparator.comparingLong(e -> e.order);
+
 	//Class
-	private List<Renderable> items;
 	private RenderableSorter sorter;
 	private int sortType;
+	private boolean deferSort, unsorted;
+	private Bucket[] ordered;
+	private Map<String, Entry> ids;
+
+	//Unlayered storage
+	private Bucket flat;
+
+	//Layered storage
+	private TreeMap<Integer, Bucket> layers;
+	private Map<Renderable, Entry> entries;
+	private long added;
+	private boolean reorder;
+
+	//Y sort keys
+	private float[] keys;
+	private long[] packed;
+	private Entry[] scratch;
+
+	//Culling
+	private int cellSize;
+	private Cell[] cells;
+	private int cellCount;
+	private Entry[] always;
+	private int alwaysCount;
+	private long[] drawn;
+	private int stamp;
+
+	//Static caching
+	private StaticRun[] runs;
+	private int run;
+	private boolean inRun;
+	private int[] cover;
 
 	/**
 	 * Creates a new RenderQueue with the assigned sort type.
@@ -43,9 +96,28 @@ public final class RenderQueue {
 	 * Objects
 	 */
 	public RenderQueue(int sortType) {
-		items = new ArrayList<Renderable>();
 		sorter = new RenderableSorter(sortType);
 		this.sortType = sortType;
+		deferSort = false;
+		unsorted = false;
+		ids = new HashMap<String, Entry>();
+
+		if(sortType == Y_SORT) {
+			keys = new float[64];
+			packed = new long[0];
+			scratch = new Entry[0];
+		}
+
+		if(sortType == LAYERED_SORT) {
+			layers = new TreeMap<Integer, Bucket>();
+			entries = new IdentityHashMap<Renderable, Entry>();
+			ordered = new Bucket[0];
+		} else {
+			flat = new Bucket(0);
+			ordered = new Bucket[] {flat};
+		}
+
+		cellSize = 0;
 	}
 
 	/**
@@ -56,41 +128,500 @@ public final class RenderQueue {
 	}
 
 	/**
-	 * Adds the passed Renderable Object to this RenderQueue. Items
-	 * are resorted after calling this.
+	 * Adds the passed Renderable Object to this RenderQueue. The
+	 * Object is inserted after every item it sorts equal to, so
+	 * the rest of the Queue doesn't need resorting.
 	 *
 	 * @param obj Added Renderable Object
 	 */
 	public void add(Renderable obj) {
-		items.add(obj);
-		Collections.sort(items, sorter);
+		Entry e = new Entry(obj);
+		index(e);
+		if(cellSize > 0) place(e);
+
+		if(layers != null) {
+			addLayered(e);
+			return;
+		}
+
+		if(deferSort || sortType == DEFAULT_SORT) {
+			flat.add(e);
+			unsorted |= deferSort;
+			return;
+		}
+
+		flat.compact();
+
+		int lo = 0, hi = flat.size;
+		while(lo < hi) {
+			int mid = (lo + hi) >>> 1;
+
+			if(sorter.compare(flat.entries[mid].obj, obj) <= 0) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+
+		flat.insert(e, lo);
 	}
 
 	/**
-	 * Removes the first Renderable Object found with the passed ID.
+	 * Adds every passed Renderable Object to this RenderQueue,
+	 * then sorts the Queue once. Use this instead of
+	 * {@link #add(Renderable)} when adding many Objects at once.
+	 *
+	 * @param objs Added Renderable Objects
+	 */
+	public void addAll(Collection<? extends Renderable> objs) {
+		for(Renderable obj : objs) {
+			Entry e = new Entry(obj);
+			index(e);
+			if(cellSize > 0) place(e);
+
+			if(layers != null) {
+				addLayered(e);
+			} else {
+				flat.add(e);
+			}
+		}
+
+		if(layers != null) return;
+
+		if(deferSort) {
+			unsorted = true;
+		} else {
+			update();
+		}
+	}
+
+	private void index(Entry e) {
+		Entry head = ids.putIfAbsent(e.obj.id(), e);
+
+		if(head == null) {
+			e.lastID = e;
+		} else {
+			head.lastID.sameID = e;
+			head.lastID = e;
+		}
+	}
+
+	private void addLayered(Entry e) {
+		e.order = added++;
+		bucket(e.obj.layer()).add(e);
+		entries.put(e.obj, e);
+	}
+
+	private Bucket bucket(int layer) {
+		Bucket b = layers.get(layer);
+
+		if(b == null) {
+			b = new Bucket(layer);
+			layers.put(layer, b);
+			ordered = layers.values().toArray(ordered);
+
+			for(int i = 0; i < ordered.length; i++) {
+				ordered[i].rank = i;
+			}
+		}
+
+		return b;
+	}
+
+	private void move(Entry e, int layer) {
+		Bucket b = bucket(layer);
+
+		e.bucket.remove(e);
+		b.add(e);
+		reorder |= b.shuffled;
+	}
+
+	private void reorder() {
+		for(Bucket b : ordered) {
+			if(b.shuffled) b.sort();
+		}
+
+		reorder = false;
+	}
+
+	/**
+	 * Sets the layer of the passed Renderable Object, and moves
+	 * it to its new place in this RenderQueue in constant time.
+	 * Layers which Objects moved into are sorted back into the
+	 * order their items were added once, before they're next
+	 * rendered. Use this instead of
+	 * {@link Renderable#setLayer(int)} for Objects in a
+	 * {@link #LAYERED_SORT} Queue.
+	 *
+	 * @param obj Target Renderable Object
+	 * @param layer New layer index
+	 */
+	public void setLayer(Renderable obj, int layer) {
+		obj.setLayer(layer);
+
+		if(layers != null) {
+			Entry e = entries.get(obj);
+
+			if(e != null && e.bucket.layer != layer) {
+				Bucket old = e.bucket;
+
+				move(e, layer);
+				old.trim();
+			}
+		}
+	}
+
+	/**
+	 * Sets whether this RenderQueue waits to sort added items.
+	 * While enabled, {@link #add(Renderable)} and
+	 * {@link #addAll(Collection)} only append, and the Queue is
+	 * sorted once before it's next rendered.
+	 *
+	 * @param deferSort New deferred sort state
+	 */
+	public void setDeferredSort(boolean deferSort) {
+		this.deferSort = deferSort;
+	}
+
+	/**
+	 * Tests if this RenderQueue waits to sort added items until
+	 * it's next rendered.
+	 *
+	 * @return {@code True} if sorting is deferred, {@code false}
+	 * otherwise.
+	 */
+	public boolean isDeferredSort() {
+		return deferSort;
+	}
+
+	/**
+	 * Removes the first added Renderable Object with the passed
+	 * ID. The Object's slot is left empty, and slots are
+	 * compacted in order once half of them are empty.
 	 *
 	 * @param id Target Renderable ID
 	 */
 	public void remove(String id) {
-		Renderable targ = null;
-		for(Renderable obj : items) {
-			if(obj.id().equals(id)) {
-				targ = obj;
-				break;
-			}
+		Entry e = ids.get(id);
+		if(e == null) return;
+
+		if(e.sameID == null) {
+			ids.remove(id);
+		} else {
+			e.sameID.lastID = e.lastID;
+			ids.put(id, e.sameID);
 		}
 
-		if(targ != null) {
-			items.remove(targ);
-			Collections.sort(items, sorter);
+		Bucket b = e.bucket;
+		b.remove(e);
+		b.trim();
+
+		if(cellSize > 0) unplace(e);
+
+		if(entries != null && entries.get(e.obj) == e) {
+			entries.remove(e.obj);
 		}
 	}
 
 	/**
-	 * Resorts every item in this Queue.
+	 * Gets the first added Renderable Object with the passed ID.
+	 *
+	 * @param id Target Renderable ID
+	 * @return Renderable Object with the passed ID, or
+	 * {@code null} if there is none.
+	 */
+	public Renderable get(String id) {
+		Entry e = ids.get(id);
+
+		return e == null ? null : e.obj;
+	}
+
+	/**
+	 * Gets the amount of Renderable Objects in this RenderQueue.
+	 *
+	 * @return Item count
+	 */
+	public int size() {
+		int size = 0;
+
+		for(Bucket b : ordered) {
+			size += b.size - b.dead;
+		}
+
+		return size;
+	}
+
+	/**
+	 * Resorts every item in this Queue. A {@link #LAYERED_SORT}
+	 * Queue instead moves any item whose layer was changed
+	 * directly with {@link Renderable#setLayer(int)}.<br>
+	 *
+	 * <b>Note:</b> a {@link #Y_SORT} Queue is usually almost
+	 * sorted already, since few items move far between frames,
+	 * so it's fixed with an insertion sort over each item's
+	 * bottom edge. If too many items are out of place, it falls
+	 * back to one full sort.
 	 */
 	public void update() {
-		Collections.sort(items, sorter);
+		if(layers != null) {
+			Bucket[] list = ordered;
+
+			for(Bucket b : list) {
+				for(int i = 0; i < b.size; i++) {
+					Entry e = b.entries[i];
+
+					if(e != null && e.obj.layer() != b.layer) {
+						move(e, e.obj.layer());
+					}
+				}
+			}
+
+			for(Bucket b : ordered) {
+				b.trim();
+			}
+
+			if(reorder) reorder();
+		} else if(keys != null) {
+			sortY();
+		}
+
+		unsorted = false;
+
+		if(cellSize > 0) {
+			for(Bucket b : ordered) {
+				for(int i = 0; i < b.size; i++) {
+					if(b.entries[i] != null) place(b.entries[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Enables or disables culling. While enabled, every
+	 * DYNAMIC_DRAW item is kept in a uniform grid of square cells
+	 * by its bounds, and {@link #render(Renderer, Camera)} only
+	 * draws items in cells the Camera can see whose bounds touch
+	 * the screen. Drawn items keep the Queue's order.<br>
+	 *
+	 * <b>Note:</b> the grid is refreshed by {@link #update()}, so
+	 * call it each frame after items move, as with
+	 * {@link #Y_SORT}. A Scene does this itself. Items whose
+	 * bounds have not changed are skipped.
+	 *
+	 * @param cellSize Width and height of each grid cell in
+	 * pixels, or {@code 0} to disable culling
+	 */
+	public void setCulling(int cellSize) {
+		if(this.cellSize > 0) {
+			for(Bucket b : ordered) {
+				for(int i = 0; i < b.size; i++) {
+					if(b.entries[i] != null) unplace(b.entries[i]);
+				}
+			}
+		}
+
+		this.cellSize = cellSize;
+		cells = null;
+		cellCount = 0;
+		always = null;
+		alwaysCount = 0;
+		drawn = null;
+
+		if(cellSize > 0) {
+			cells = new Cell[64];
+			always = new Entry[16];
+			drawn = new long[64];
+
+			update();
+		}
+	}
+
+	/**
+	 * Gets the grid cell size used for culling.
+	 *
+	 * @return Cell size in pixels, or {@code 0} if culling is
+	 * disabled
+	 */
+	public int getCulling() {
+		return cellSize;
+	}
+
+	private void place(Entry e) {
+		Renderable obj = e.obj;
+
+		if(obj.drawType() == DYNAMIC_DRAW) {
+			Bounds b = obj.bounds();
+			float x = b.getX(), y = b.getY(), w = b.getWidth(), h = b.getHeight();
+
+			if(e.binned && x == e.x && y == e.y && w == e.w && h == e.h) return;
+
+			int cx1 = Math.floorDiv((int) Math.floor(x), cellSize);
+			int cy1 = Math.floorDiv((int) Math.floor(y), cellSize);
+			int cx2 = Math.floorDiv((int) Math.ceil(x + w), cellSize);
+			int cy2 = Math.floorDiv((int) Math.ceil(y + h), cellSize);
+
+			if((long) (cx2 - cx1 + 1) * (cy2 - cy1 + 1) <= MAX_CELLS) {
+				boolean moved = !e.binned || cx1 != e.cx1 || cy1 != e.cy1 || cx2 != e.cx2 || cy2 != e.cy2;
+
+				e.x = x;
+				e.y = y;
+				e.w = w;
+				e.h = h;
+
+				if(!moved) return;
+
+				unplace(e);
+				e.cx1 = cx1;
+				e.cy1 = cy1;
+				e.cx2 = cx2;
+				e.cy2 = cy2;
+				e.binned = true;
+
+				for(int cy = cy1; cy <= cy2; cy++) {
+					for(int cx = cx1; cx <= cx2; cx++) {
+						cell(cx, cy, true).add(e);
+					}
+				}
+
+				return;
+			}
+		}
+
+		if(e.binned) unplace(e);
+
+		if(e.alwaysIndex < 0) {
+			if(alwaysCount == always.length) always = Arrays.copyOf(always, alwaysCount * 2);
+
+			e.alwaysIndex = alwaysCount;
+			always[alwaysCount++] = e;
+		}
+	}
+
+	private void unplace(Entry e) {
+		if(e.binned) {
+			for(int cy = e.cy1; cy <= e.cy2; cy++) {
+				for(int cx = e.cx1; cx <= e.cx2; cx++) {
+					cell(cx, cy, false).remove(e);
+				}
+			}
+
+			e.binned = false;
+		}
+
+		if(e.alwaysIndex >= 0) {
+			Entry last = always[--alwaysCount];
+
+			always[e.alwaysIndex] = last;
+			last.alwaysIndex = e.alwaysIndex;
+			always[alwaysCount] = null;
+			e.alwaysIndex = -1;
+		}
+	}
+
+	private Cell cell(int cx, int cy, boolean create) {
+		int h = cellHash(cx, cy) & (cells.length - 1);
+
+		for(Cell c = cells[h]; c != null; c = c.next) {
+			if(c.cx == cx && c.cy == cy) return c;
+		}
+
+		if(!create) return null;
+
+		if(cellCount >= cells.length * 3 / 4) {
+			Cell[] old = cells;
+			cells = new Cell[old.length * 2];
+
+			for(Cell c : old) {
+				while(c != null) {
+					Cell next = c.next;
+					int i = cellHash(c.cx, c.cy) & (cells.length - 1);
+
+					c.next = cells[i];
+					cells[i] = c;
+					c = next;
+				}
+			}
+
+			h = cellHash(cx, cy) & (cells.length - 1);
+		}
+
+		Cell c = new Cell(cx, cy);
+		c.next = cells[h];
+		cells[h] = c;
+		cellCount++;
+
+		return c;
+	}
+
+	private static int cellHash(int cx, int cy) {
+		int h = cx * 0x9e3779b1 ^ cy * 0x85ebca77;
+
+		return h ^ (h >>> 16);
+	}
+
+	private void sortY() {
+		flat.compact();
+
+		Entry[] items = flat.entries;
+		int n = flat.size;
+		if(keys.length < n) keys = new float[Math.max(n, keys.length * 2)];
+
+		for(int i = 0; i < n; i++) {
+			Bounds b = items[i].obj.bounds();
+			keys[i] = b.getY() + b.getHeight();
+		}
+
+		int shifts = 0, limit = 4 * n + 64;
+
+		for(int i = 1; i < n; i++) {
+			float k = keys[i];
+			if(keys[i - 1] <= k) continue;
+
+			Entry e = items[i];
+			int j = i - 1;
+
+			while(j >= 0 && keys[j] > k) {
+				keys[j + 1] = keys[j];
+				items[j + 1] = items[j];
+				j--;
+			}
+
+			keys[j + 1] = k;
+			items[j + 1] = e;
+
+			shifts += i - 1 - j;
+			if(shifts > limit) {
+				sortYFully(n);
+				break;
+			}
+		}
+
+		if(shifts > 0) flat.reindex(0);
+	}
+
+	private void sortYFully(int n) {
+		Entry[] items = flat.entries;
+
+		if(packed.length < n) {
+			packed = new long[keys.length];
+			scratch = new Entry[keys.length];
+		}
+
+		for(int i = 0; i < n; i++) {
+			int bits = Float.floatToIntBits(keys[i]);
+			bits ^= (bits >> 31) & 0x7fffffff;
+
+			packed[i] = ((long) bits << 32) | i;
+			scratch[i] = items[i];
+		}
+
+		Arrays.sort(packed, 0, n);
+
+		for(int i = 0; i < n; i++) {
+			items[i] = scratch[(int) packed[i]];
+		}
+
+		Arrays.fill(scratch, 0, n, null);
 	}
 
 	/**
@@ -101,17 +632,181 @@ public final class RenderQueue {
 	 * @param camera Game Camera offset
 	 */
 	public void render(Renderer renderer, Camera camera) {
-		for(Renderable i : items) {
-			if(i.visible()) {
-				switch(i.drawType()) {
-					case DYNAMIC_DRAW:
-						DYNAMIC_RENDER(i, renderer, camera);
-						break;
-					default:
-						STATIC_RENDER(i, renderer);
+		if(unsorted) update();
+		if(reorder) reorder();
+
+		run = 0;
+
+		if(cellSize > 0) {
+			renderCulled(renderer, camera);
+		} else {
+			for(Bucket b : ordered) {
+				for(int n = 0; n < b.size; n++) {
+					Entry e = b.entries[n];
+					if(e != null) draw(e.obj, renderer, camera);
 				}
 			}
 		}
+
+		if(inRun) endRun(renderer);
+	}
+
+	/**
+	 * Enables or disables static layer caching. While enabled,
+	 * the draw calls of each run of consecutive STATIC_DRAW items
+	 * are recorded and compared with the last frame's. Once they
+	 * have matched for a few frames in a row, a cached layer
+	 * holding the whole run is composited with one blit instead
+	 * of drawing each item. The layer is dropped when an item in
+	 * the run moves, is hidden or shown, draws a different or
+	 * changed image, changes layer, or the run otherwise draws
+	 * something new. Runs which use a blend mode other than
+	 * {@link Blend#SRC_OVER} are drawn normally.<br>
+	 *
+	 * <b>Note:</b> a Bitmap changed in place is noticed once
+	 * {@link Bitmap#classifyRows()} is called, but a Color array
+	 * changed in place isn't. Draw a new array instead, or toggle
+	 * this setting to drop every cached layer.
+	 *
+	 * @param staticCaching New static layer caching state
+	 */
+	public void setStaticCaching(boolean staticCaching) {
+		runs = staticCaching ? new StaticRun[4] : null;
+		inRun = false;
+	}
+
+	/**
+	 * Tests if runs of STATIC_DRAW items are drawn from cached
+	 * layers.
+	 *
+	 * @return {@code True} if static layer caching is enabled,
+	 * {@code false} otherwise.
+	 */
+	public boolean isStaticCaching() {
+		return runs != null;
+	}
+
+	private void draw(Renderable obj, Renderer renderer, Camera camera) {
+		if(runs != null) {
+			if(obj.drawType() != DYNAMIC_DRAW) {
+				if(!inRun) beginRun(renderer);
+			} else if(inRun) {
+				endRun(renderer);
+			}
+		}
+
+		render(obj, renderer, camera);
+	}
+
+	private void beginRun(Renderer renderer) {
+		if(run == runs.length) runs = Arrays.copyOf(runs, run * 2);
+		if(runs[run] == null) runs[run] = new StaticRun();
+
+		renderer.beginCapture(runs[run].captured);
+		inRun = true;
+	}
+
+	private void endRun(Renderer renderer) {
+		StaticRun r = runs[run++];
+
+		renderer.endCapture();
+		inRun = false;
+
+		boolean same = r.captured.isLayerable() && r.captured.sameAs(r.cached);
+
+		DrawList swap = r.cached;
+		r.cached = r.captured;
+		r.captured = swap;
+
+		if(!same) {
+			r.built = false;
+			r.layer = null;
+			r.stable = 0;
+		} else if(!r.built && ++r.stable >= STABLE_FRAMES) {
+			build(r, renderer);
+		}
+
+		if(!r.built) {
+			renderer.replay(r.cached);
+		} else if(r.layer != null) {
+			renderer.drawLayer(r.layer);
+		}
+	}
+
+	private void build(StaticRun r, Renderer renderer) {
+		r.built = true;
+		r.layer = null;
+
+		if(!r.cached.area(renderer.getWidth(), renderer.getHeight(), r.area)) return;
+
+		int size = (r.area[2] - r.area[0]) * (r.area[3] - r.area[1]);
+		if(cover == null || cover.length < size) cover = new int[size];
+
+		r.layer = new StaticLayer(r.cached, r.area, cover);
+	}
+
+	private void renderCulled(Renderer renderer, Camera camera) {
+		int x1 = camera.getX(), x2 = x1 + renderer.getWidth();
+		int y1 = camera.getY(), y2 = y1 + renderer.getHeight();
+		int n = 0;
+
+		stamp++;
+
+		for(int i = 0; i < alwaysCount; i++) {
+			Entry e = always[i];
+
+			if(e.obj.drawType() != DYNAMIC_DRAW || onScreen(e.obj, x1, y1, x2, y2)) {
+				n = draw(e, n);
+			}
+		}
+
+		for(int cy = Math.floorDiv(y1, cellSize); cy <= Math.floorDiv(y2, cellSize); cy++) {
+			for(int cx = Math.floorDiv(x1, cellSize); cx <= Math.floorDiv(x2, cellSize); cx++) {
+				Cell c = cell(cx, cy, false);
+				if(c == null) continue;
+
+				for(int i = 0; i < c.size; i++) {
+					Entry e = c.items[i];
+
+					if(e.stamp != stamp) {
+						e.stamp = stamp;
+						if(onScreen(e.obj, x1, y1, x2, y2)) n = draw(e, n);
+					}
+				}
+			}
+		}
+
+		Arrays.sort(drawn, 0, n);
+
+		for(int i = 0; i < n; i++) {
+			draw(ordered[(int) (drawn[i] >>> 32)].entries[(int) drawn[i]].obj, renderer, camera);
+		}
+	}
+
+	private int draw(Entry e, int n) {
+		if(n == drawn.length) drawn = Arrays.copyOf(drawn, n * 2);
+
+		drawn[n] = ((long) e.bucket.rank << 32) | e.index;
+		return n + 1;
+	}
+
+	private static boolean onScreen(Renderable obj, int x1, int y1, int x2, int y2) {
+		Bounds b = obj.bounds();
+
+		return b.getX() <= x2 && b.getX() + b.getWidth() >= x1 &&
+					 b.getY() <= y2 && b.getY() + b.getHeight() >= y1;
+	}
+
+	private static void render(Renderable i, Renderer renderer, Camera camera) {
+		if(i.visible()) {
+			switch(i.drawType()) {
+				case DYNAMIC_DRAW:
+					DYNAMIC_RENDER(i, renderer, camera);
+					break;
+				default:
+					STATIC_RENDER(i, renderer);
+			}
+		}
 	}
 
 	/**
@@ -151,15 +846,197 @@ public final class RenderQueue {
 		public int compare(Renderable a, Renderable b) {
 			switch(sortType) {
 				case Y_SORT:
-					return (b.bounds().getY() + b.bounds().getHeight()) < 
-								 (a.bounds().getY() + a.bounds().getHeight()) ? 1 : -1;
+					return Float.compare(a.bounds().getY() + a.bounds().getHeight(),
+															 b.bounds().getY() + b.bounds().getHeight());
 
 				case LAYERED_SORT:
-					return b.layer() < a.layer() ? 1 : b.layer() == a.layer() ? 0 : -1;
+					return Integer.compare(a.layer(), b.layer());
 
 				default:
 					return 0;
 			}
 		}
 	}
+
+	/**
+	 * Slot of one Renderable in a Bucket. Entries with the same
+	 * ID are chained in the order they were added, and the first
+	 * Entry of a chain keeps its last, so adding is constant time.
+	 */
+	private static final class Entry {
+		private final Renderable obj;
+		private Entry sameID, lastID;
+		private Bucket bucket;
+		private int index;
+		private long order;
+
+		//Culling
+		private boolean binned;
+		private int cx1, cy1, cx2, cy2;
+		private float x, y, w, h;
+		private int alwaysIndex, stamp;
+
+		private Entry(Renderable obj) {
+			this.obj = obj;
+			alwaysIndex = -1;
+		}
+	}
+
+	/**
+	 * Dense array of Entries in render order. A layered Queue
+	 * has one Bucket per layer, any other Queue keeps every
+	 * Entry in one Bucket. Removed Entries leave a {@code null}
+	 * slot, and the slots are compacted once half of them are
+	 * empty. A layered Bucket which an Entry was moved into out
+	 * of add order is sorted once before it's next drawn.
+	 */
+	private static final class Bucket {
+		private final int layer;
+		private Entry[] entries;
+		private int size, dead, rank;
+		private long last;
+		private boolean shuffled;
+
+		private Bucket(int layer) {
+			this.layer = layer;
+			entries = new Entry[16];
+			size = 0;
+			dead = 0;
+			last = 0L;
+			shuffled = false;
+		}
+
+		private void add(Entry e) {
+			if(size == entries.length) {
+				if(dead > size / 2) {
+					compact();
+				} else {
+					entries = Arrays.copyOf(entries, size * 2);
+				}
+			}
+
+			if(e.order < last) {
+				shuffled = true;
+			} else {
+				last = e.order;
+			}
+
+			e.bucket = this;
+			e.index = size;
+			entries[size++] = e;
+		}
+
+		private void insert(Entry e, int index) {
+			if(size == entries.length) entries = Arrays.copyOf(entries, size * 2);
+
+			System.arraycopy(entries, index, entries, index + 1, size - index);
+			entries[index] = e;
+			e.bucket = this;
+			size++;
+
+			reindex(index);
+		}
+
+		private void sort() {
+			compact();
+			Arrays.sort(entries, 0, size, BY_ORDER);
+			reindex(0);
+
+			shuffled = false;
+		}
+
+		private void remove(Entry e) {
+			entries[e.index] = null;
+			e.bucket = null;
+			dead++;
+		}
+
+		private void trim() {
+			if(dead > size / 2) compact();
+		}
+
+		private void compact() {
+			if(dead == 0) return;
+
+			int n = 0;
+
+			for(int i = 0; i < size; i++) {
+				Entry e = entries[i];
+
+				if(e != null) {
+					e.index = n;
+					entries[n++] = e;
+				}
+			}
+
+			Arrays.fill(entries, n, size, null);
+			size = n;
+			dead = 0;
+		}
+
+		private void reindex(int from) {
+			for(int i = from; i < size; i++) {
+				entries[i].index = i;
+			}
+		}
+	}
+
+	/**
+	 * One square of the culling grid, holding every binned
+	 * Entry whose bounds touch it. Cells with the same hash are
+	 * chained.
+	 */
+	private static final class Cell {
+		private final int cx, cy;
+		private Entry[] items;
+		private int size;
+		private Cell next;
+
+		private Cell(int cx, int cy) {
+			this.cx = cx;
+			this.cy = cy;
+			items = new Entry[8];
+			size = 0;
+		}
+
+		private void add(Entry e) {
+			if(size == items.length) items = Arrays.copyOf(items, size * 2);
+
+			items[size++] = e;
+		}
+
+		private void remove(Entry e) {
+			for(int i = 0; i < size; i++) {
+				if(items[i] == e) {
+					items[i] = items[--size];
+					items[size] = null;
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Cached layer of one run of STATIC_DRAW items, with the
+	 * draw calls it was built from. The layer is only built once
+	 * the run has drawn the same thing for
+	 * {@link #STABLE_FRAMES} frames in a row, so runs which
+	 * change every frame are drawn normally instead of being
+	 * rebuilt every frame.
+	 */
+	private static final class StaticRun {
+		private DrawList captured, cached;
+		private StaticLayer layer;
+		private final int[] area;
+		private boolean built;
+		private int stable;
+
+		private StaticRun() {
+			captured = new DrawList();
+			cached = new DrawList();
+			area = new int[4];
+			built = false;
+			stable = 0;
+		}
+	}
 }
\ No newline at end of file
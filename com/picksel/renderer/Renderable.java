@@ -30,7 +30,7 @@ public interface Renderable {
 	 * @param renderer Target Renderer to draw this Object
 	 */
 	public static void STATIC_RENDER(Renderable rend, Renderer renderer) {
-		rend.render(renderer, new Camera());
+		rend.render(renderer, Camera.NO_OFFSET);
 	}
 
 	/**
@@ -65,8 +65,11 @@ public interface Renderable {
 	/**
 	 * Sets the layer index of this Renderable to the passed
 	 * index.<br>
-	 * <b>Note:</b> calling this does not update the
-	 * associated RenderQueue.
+	 * <b>Note:</b> calling this does not move this Renderable
+	 * in a {@link RenderQueue#LAYERED_SORT} RenderQueue until its
+	 * {@link RenderQueue#update()} is called. Use
+	 * {@link RenderQueue#setLayer(Renderable, int)} to move it at
+	 * once.
 	 *
 	 * @param layer New layer index
 	 */
@@ -4,18 +4,44 @@ import java.awt.Image;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
 
 import com.picksel.util.Camera;
 
 /**
- * Manages all rendering for a Picksel Game.
+ * Manages all rendering for a Picksel Game.<br>
+ *
+ * <b>Note:</b> pixels are stored row-major as packed ARGB
+ * {@code int} values inside the backing BufferedImage, so
+ * {@link #asImage()} never has to copy the frame.
  *
  * @author Noah James Rathman
  */
 public final class Renderer {
-	private final Color[][] pixels;
 	private final BufferedImage image;
+	private final int[] pixels;
 	private final int width, height;
+	private final Rasterizer screen;
+	private DrawList commands, pending, capture;
+	private int blendMode;
+
+	//Parallel rendering
+	private boolean parallel;
+	private ForkJoinPool pool;
+	private BandTask[] bands;
+	private FrameTask frameTask;
+
+	//Pipelined rendering
+	private RenderThread renderThread;
+
+	//Dirty rectangle tracking
+	private boolean dirtyTracking, partialFrame;
+	private volatile boolean redrawAll;
+	private DrawList last;
+	private final DirtyRegion dirty;
 
 	/**
 	 * Creates a new Renderer.
@@ -25,11 +51,19 @@ public final class Renderer {
 	 * @param scale Scale of each pixel
 	 */
 	public Renderer(int width, int height, float scale) {
-		pixels = new Color[width][height];
 		image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
 
 		this.width = width;
 		this.height = height;
+		screen = new Rasterizer(pixels, width, 0, 0, width, height);
+		commands = new DrawList();
+		pending = new DrawList();
+		last = new DrawList();
+		dirty = new DirtyRegion(width, height);
+		blendMode = Blend.SRC_OVER;
+		parallel = false;
+		dirtyTracking = false;
 
 		clear();
 	}
@@ -38,15 +72,324 @@ public final class Renderer {
 	 * Resets all pixels to {@link Color#BLACK}.
 	 */
 	public void clear() {
-		long color = 0L;
+		if(isRecording()) {
+			commands.reset();
+			record(DrawList.CLEAR, Blend.REPLACE, 0, 0, width, height, Color.BLACK.intValue(), null);
+		} else {
+			screen.clear(Color.BLACK.intValue());
+		}
+	}
+
+	/**
+	 * Enables or disables parallel rendering. While enabled, draw
+	 * calls are recorded and binned into horizontal bands of the
+	 * screen, and the bands are drawn at the same time on a
+	 * fork-join pool when the frame is flushed. Each band draws
+	 * its commands in the order they were made, so the result is
+	 * the same as drawing them one at a time.
+	 *
+	 * @param parallel New parallel rendering state
+	 */
+	public void setParallel(boolean parallel) {
+		if(parallel == this.parallel) return;
+
+		flush();
+
+		if(parallel) {
+			int threads = Runtime.getRuntime().availableProcessors();
+			int count = Math.max(1, Math.min(height, threads * 2));
+
+			int bandHeight = (height + count - 1) / count;
+
+			pool = new ForkJoinPool(threads);
+			bands = new BandTask[count];
+			frameTask = new FrameTask();
+
+			for(int i = 0; i < count; i++) {
+				int y1 = Math.min(height, i * bandHeight);
+				int y2 = Math.min(height, y1 + bandHeight);
+
+				bands[i] = new BandTask(i, y1, y2, new Rasterizer(pixels, width, 0, y1, width, y2));
+			}
+
+			commands.setBands(count, bandHeight);
+			pending.setBands(count, bandHeight);
+			last.setBands(count, bandHeight);
+		} else {
+			pool.shutdown();
+			pool = null;
+			bands = null;
+			frameTask = null;
+
+			commands.setBands(0, 0);
+			pending.setBands(0, 0);
+			last.setBands(0, 0);
+		}
+
+		this.parallel = parallel;
+	}
+
+	/**
+	 * Tests if this Renderer is drawing in parallel.
+	 *
+	 * @return {@code True} if parallel rendering is enabled,
+	 * {@code false} otherwise.
+	 */
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	/**
+	 * Enables or disables pipelined rendering. While enabled,
+	 * draw calls are recorded, and {@link #endFrame(Consumer)}
+	 * hands the recorded frame to a separate render Thread. The
+	 * Game can then update the next frame while the last one is
+	 * still being drawn. Only one frame is drawn at a time.
+	 *
+	 * @param pipelined New pipelined rendering state
+	 */
+	public void setPipelined(boolean pipelined) {
+		if(pipelined == isPipelined()) return;
+
+		flush();
+
+		if(pipelined) {
+			renderThread = new RenderThread();
+			renderThread.start();
+		} else {
+			renderThread.finish();
+			renderThread = null;
+		}
+	}
+
+	/**
+	 * Tests if this Renderer is drawing on a separate Thread.
+	 *
+	 * @return {@code True} if pipelined rendering is enabled,
+	 * {@code false} otherwise.
+	 */
+	public boolean isPipelined() {
+		return renderThread != null;
+	}
+
+	/**
+	 * Enables or disables dirty rectangle tracking. While enabled,
+	 * draw calls are recorded and compared with the last frame's.
+	 * Only the areas touched by commands which changed, moved,
+	 * appeared or disappeared are drawn again, and
+	 * {@link #endFrame(Consumer)} skips presenting frames where
+	 * nothing changed. See {@link #getDirtyRegion()}.<br>
+	 *
+	 * <b>Note:</b> images are compared by identity. A Bitmap
+	 * changed in place is noticed through
+	 * {@link Bitmap#classifyRows()}, but a Color array changed
+	 * in place isn't, so call {@link #invalidate()} after
+	 * changing one.
+	 *
+	 * @param dirtyTracking New dirty rectangle tracking state
+	 */
+	public void setDirtyTracking(boolean dirtyTracking) {
+		if(dirtyTracking == this.dirtyTracking) return;
+
+		flush();
+
+		last.reset();
+		redrawAll = true;
+		this.dirtyTracking = dirtyTracking;
+	}
+
+	/**
+	 * Tests if this Renderer only redraws changed areas.
+	 *
+	 * @return {@code True} if dirty rectangle tracking is
+	 * enabled, {@code false} otherwise.
+	 */
+	public boolean isDirtyTracking() {
+		return dirtyTracking;
+	}
+
+	/**
+	 * Forces the next frame to be fully drawn and presented, such
+	 * as after the window's contents were lost.
+	 */
+	public void invalidate() {
+		redrawAll = true;
+	}
+
+	/**
+	 * Gets the areas drawn in the last frame when dirty rectangle
+	 * tracking is enabled. Only valid inside the {@code present}
+	 * callback of {@link #endFrame(Consumer)}.
+	 *
+	 * @return Changed areas of the last frame
+	 */
+	public DirtyRegion getDirtyRegion() {
+		return dirty;
+	}
+
+	private boolean isRecording() {
+		return parallel || renderThread != null || dirtyTracking || capture != null;
+	}
+
+	/**
+	 * Records every following draw call into the passed DrawList
+	 * instead of drawing it, until {@link #endCapture()} is
+	 * called.
+	 *
+	 * @param list Emptied DrawList draw calls are recorded into
+	 */
+	void beginCapture(DrawList list) {
+		list.reset();
+		capture = list;
+	}
+
+	/**
+	 * Stops recording draw calls into the capture DrawList.
+	 */
+	void endCapture() {
+		capture = null;
+	}
+
+	/**
+	 * Draws every command of the passed DrawList, as if each
+	 * draw call was made again.
+	 *
+	 * @param list Commands being drawn
+	 */
+	void replay(DrawList list) {
+		if(isRecording()) {
+			commands.append(list);
+		} else {
+			list.executeAll(screen);
+		}
+	}
+
+	/**
+	 * Composites the passed StaticLayer onto the screen.
+	 *
+	 * @param layer Layer being drawn
+	 */
+	void drawLayer(StaticLayer layer) {
+		if(isRecording()) {
+			record(DrawList.LAYER, Blend.SRC_OVER, layer.getX(), layer.getY(), layer.getWidth(), layer.getHeight(), 0, layer);
+		} else {
+			screen.drawLayer(layer);
+		}
+	}
+
+	/**
+	 * Finishes the current frame and passes the drawn image to
+	 * {@code present}. When pipelined rendering is enabled this
+	 * waits for the previous frame, then returns right away while
+	 * the frame is drawn and presented on the render Thread.
+	 * Otherwise the frame is drawn and presented before this
+	 * method returns.<br>
+	 *
+	 * <b>Note:</b> {@code present} must not call
+	 * {@link #asImage()} or {@link #getPixels()}, as it may run
+	 * while the next frame is being recorded.
+	 *
+	 * @param present Called with the finished image
+	 */
+	public void endFrame(Consumer<BufferedImage> present) {
+		if(renderThread != null) {
+			renderThread.await();
+
+			DrawList frame = commands;
+			commands = pending;
+			pending = frame;
+			commands.reset();
+
+			renderThread.submit(present);
+		} else {
+			if(isRecording()) commands = draw(commands, true);
+			if(!dirtyTracking || !dirty.isEmpty()) present.accept(image);
+		}
+	}
+
+	/**
+	 * Draws every recorded command to the screen, first waiting
+	 * for any frame still on the render Thread. Does nothing
+	 * unless parallel or pipelined rendering is enabled, since
+	 * draw calls are otherwise drawn right away.
+	 */
+	public void flush() {
+		if(!isRecording()) return;
+		if(renderThread != null) renderThread.await();
+
+		if(commands.size() > 0) commands = draw(commands, false);
+	}
+
+	/**
+	 * Draws the passed list of commands. With dirty rectangle
+	 * tracking, a finished frame is compared with the last one
+	 * and kept for the next comparison. Frames flushed part way
+	 * through are drawn in full, and the next frame is too.
+	 *
+	 * @param list Commands being drawn
+	 * @param frameEnd If {@code list} holds a whole frame
+	 * @return Empty DrawList to record into next
+	 */
+	private DrawList draw(DrawList list, boolean frameEnd) {
+		if(!dirtyTracking) {
+			rasterize(list, null);
+			list.reset();
+			return list;
+		}
+
+		dirty.clear();
+
+		if(!frameEnd || partialFrame || redrawAll) {
+			dirty.addAll();
+			redrawAll = partialFrame || !frameEnd;
+			partialFrame = !frameEnd;
+		} else {
+			list.diff(last, dirty);
+		}
+
+		if(!dirty.isEmpty()) {
+			rasterize(list, dirty.isFull() ? null : dirty);
+		}
+
+		DrawList old = last;
+		last = list;
+		old.reset();
+
+		return old;
+	}
 
-		for(int y = 0; y < height; y++) {
-			for(int x = 0; x < width; x++) {
-				pixels[x][y] = Color.BLACK;
-			}	
+	private void rasterize(DrawList list, DirtyRegion region) {
+		if(list.size() == 0) return;
+
+		if(parallel) {
+			for(BandTask band : bands) {
+				band.reinitialize();
+			}
+
+			frameTask.list = list;
+			frameTask.region = region;
+			frameTask.reinitialize();
+			pool.invoke(frameTask);
+		} else if(region == null) {
+			list.executeAll(screen);
+		} else {
+			for(int i = 0; i < region.size(); i++) {
+				int x = region.getX(i), y = region.getY(i);
+
+				screen.setClip(x, y, x + region.getWidth(i), y + region.getHeight(i));
+				list.executeAll(screen);
+			}
+
+			screen.setClip(0, 0, width, height);
 		}
 	}
 
+	private void record(int op, int mode, int x, int y, int w, int h, int argb, Object ref) {
+		if(y >= height || y + h <= 0 || x >= width || x + w <= 0) return;
+
+		(capture != null ? capture : commands).add(op, mode, x, y, w, h, argb, ref);
+	}
+
 	/**
 	 * Tests if the passed coordinate is inside the screen.
 	 *
@@ -67,30 +410,81 @@ public final class Renderer {
 	 * @param color Draw color
 	 */
 	public void setPixel(int x, int y, Color color) {
-		if(inBounds(x, y)) pixels[x][y] = pixels[x][y].blend(color);
+		if(isRecording()) {
+			record(DrawList.PIXEL, blendMode, x, y, 1, 1, color.intValue(), null);
+		} else {
+			screen.setPixel(x, y, color.intValue(), blendMode);
+		}
+	}
+
+	/**
+	 * Sets the blend mode used by every following draw call.
+	 * See {@link Blend} for the available modes.
+	 *
+	 * @param mode New blend mode
+	 */
+	public void setBlendMode(int mode) {
+		blendMode = mode;
 	}
 
 	/**
-	 * Draws a 2D array of colors.
+	 * Gets the blend mode used by draw calls.
+	 *
+	 * @return Current blend mode
+	 */
+	public int getBlendMode() {
+		return blendMode;
+	}
+
+	/**
+	 * Draws a 2D array of colors. Only the part of the array
+	 * which overlaps the screen is visited.
 	 *
 	 * @param xOff Horizontal offset
 	 * @param yOff Vertical offset
 	 * @param colors Array of colors drawn
 	 */
 	public void drawColorArray(int xOff, int yOff, Color[][] colors) {
-		int w = colors.length;
-		int h = colors[0].length;
+		if(isRecording()) {
+			record(DrawList.COLOR_ARRAY, blendMode, xOff, yOff, colors.length, colors[0].length, 0, colors);
+		} else {
+			screen.drawColorArray(xOff, yOff, colors, blendMode);
+		}
+	}
 
-		for(int y = 0; y < h; y++) {
-			if(y >= height) break;
-			for(int x = 0; x < w; x++) {
-				if(x >= width) break;
-				Color col = colors[x][y];
+	/**
+	 * Draws a Bitmap. The overlap between the Bitmap and the
+	 * screen is found once, fully transparent rows are skipped
+	 * and fully opaque rows are copied without blending.
+	 *
+	 * @param xOff Horizontal offset
+	 * @param yOff Vertical offset
+	 * @param bitmap Bitmap drawn
+	 */
+	public void drawBitmap(int xOff, int yOff, Bitmap bitmap) {
+		if(isRecording()) {
+			record(DrawList.BITMAP, blendMode, xOff, yOff, bitmap.getWidth(), bitmap.getHeight(), bitmap.getModCount(), bitmap);
+		} else {
+			screen.drawBitmap(xOff, yOff, bitmap, blendMode);
+		}
+	}
 
-				if(inBounds(x + xOff, y + yOff)) {
-					pixels[x + xOff][y + yOff] = pixels[x + xOff][y + yOff].blend(col);
-				}
-			}	
+	/**
+	 * Draws a RunLengthBitmap. Transparent runs are skipped,
+	 * opaque runs are copied and only translucent runs are
+	 * blended. When the blend mode is {@link Blend#REPLACE}
+	 * the source Bitmap is drawn instead, since transparent
+	 * runs hold no pixels.
+	 *
+	 * @param xOff Horizontal offset
+	 * @param yOff Vertical offset
+	 * @param rle RunLengthBitmap drawn
+	 */
+	public void drawRunLength(int xOff, int yOff, RunLengthBitmap rle) {
+		if(isRecording()) {
+			record(DrawList.RUN_LENGTH, blendMode, xOff, yOff, rle.getWidth(), rle.getHeight(), 0, rle);
+		} else {
+			screen.drawRunLength(xOff, yOff, rle, blendMode);
 		}
 	}
 
@@ -115,17 +509,10 @@ public final class Renderer {
 	 * @param color Draw color
 	 */
 	public void drawRect(int xOff, int yOff, int xSize, int ySize, Color color) {
-		int x1 = xOff, x2 = xOff + xSize - 1;
-		int y1 = yOff, y2 = yOff + ySize - 1;
-
-		for(int x = x1; x < x2 + 1; x++) {
-			if(inBounds(x, y1)) pixels[x][y1] = pixels[x][y1].blend(color);
-			if(inBounds(x, y2)) pixels[x][y2] = pixels[x][y2].blend(color);
-		}
-
-		for(int y = y1 + 1; y < y2; y++) {
-			if(inBounds(x1, y)) pixels[x1][y] = pixels[x1][y].blend(color);
-			if(inBounds(x2, y)) pixels[x2][y] = pixels[x2][y].blend(color);
+		if(isRecording()) {
+			record(DrawList.DRAW_RECT, blendMode, xOff, yOff, xSize, ySize, color.intValue(), null);
+		} else {
+			screen.drawRect(xOff, yOff, xSize, ySize, color.intValue(), blendMode);
 		}
 	}
 
@@ -139,28 +526,207 @@ public final class Renderer {
 	 * @param color Draw color
 	 */
 	public void fillRect(int xOff, int yOff, int xSize, int ySize, Color color) {
-		for(int x = xOff; x < xOff + xSize; x++) {
-			if(x >= width) break;
-			for(int y = yOff; y < yOff + ySize; y++) {
-				if(y >= height) break;
-				if(inBounds(x, y)) pixels[x][y] = pixels[x][y].blend(color);
-			}
+		if(isRecording()) {
+			record(DrawList.FILL_RECT, blendMode, xOff, yOff, xSize, ySize, color.intValue(), null);
+		} else {
+			screen.fillRect(xOff, yOff, xSize, ySize, color.intValue(), blendMode);
 		}
 	}
 
 	/**
-	 * Converts this Renderer to a BufferedImage.
+	 * Gets the BufferedImage backing this Renderer. The image
+	 * shares its pixel data with this Renderer, so no copy is
+	 * made and later draw calls are visible in it. Any recorded
+	 * commands are flushed first.
 	 *
-	 * @return Renderer as BufferedImage, scaled by previously defined
-	 * {@code scale} value.
+	 * @return Renderer as BufferedImage
 	 */
 	public BufferedImage asImage() {
-		for(int x = 0; x < width; x++) {
-			for(int y = 0; y < height; y++) {
-				image.setRGB(x, y, pixels[x][y].intValue());
+		flush();
+		return image;
+	}
+
+	/**
+	 * Gets the packed ARGB pixels of this Renderer, stored
+	 * row-major ({@code y * width + x}). Any recorded commands
+	 * are flushed first.
+	 *
+	 * @return Framebuffer pixel array
+	 */
+	public int[] getPixels() {
+		flush();
+		return pixels;
+	}
+
+	/**
+	 * Gets the width of this Renderer in pixels.
+	 *
+	 * @return Framebuffer width
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Gets the height of this Renderer in pixels.
+	 *
+	 * @return Framebuffer height
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Draws every command binned to one band of the screen.
+	 */
+	private final class BandTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int band, y1, y2;
+		private final Rasterizer raster;
+
+		private BandTask(int band, int y1, int y2, Rasterizer raster) {
+			this.band = band;
+			this.y1 = y1;
+			this.y2 = y2;
+			this.raster = raster;
+		}
+
+		protected void compute() {
+			DirtyRegion region = frameTask.region;
+
+			if(region == null) {
+				frameTask.list.executeBand(band, raster);
+				return;
 			}
+
+			for(int i = 0; i < region.size(); i++) {
+				int x = region.getX(i);
+				int top = Math.max(y1, region.getY(i));
+				int bottom = Math.min(y2, region.getY(i) + region.getHeight(i));
+
+				if(top < bottom) {
+					raster.setClip(x, top, x + region.getWidth(i), bottom);
+					frameTask.list.executeBand(band, raster);
+				}
+			}
+
+			raster.setClip(0, y1, width, y2);
+		}
+	}
+
+	/**
+	 * Draws every band of the screen at the same time.
+	 */
+	private final class FrameTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private DrawList list;
+		private DirtyRegion region;
+
+		protected void compute() {
+			invokeAll(bands);
+		}
+	}
+
+	/**
+	 * Draws and presents recorded frames while the Game
+	 * updates the next one.
+	 */
+	private final class RenderThread extends Thread {
+		private Consumer<BufferedImage> present;
+		private RuntimeException error;
+		private boolean busy, running;
+
+		private RenderThread() {
+			super("Picksel Renderer");
+			setDaemon(true);
+
+			busy = false;
+			running = true;
 		}
 
-		return image;
+		private synchronized void submit(Consumer<BufferedImage> present) {
+			this.present = present;
+			busy = true;
+			notifyAll();
+		}
+
+		private synchronized void await() {
+			boolean interrupted = false;
+
+			while(busy) {
+				try {
+					wait();
+				} catch(InterruptedException e) {
+					interrupted = true;
+				}
+			}
+
+			if(interrupted) Thread.currentThread().interrupt();
+
+			if(error != null) {
+				RuntimeException e = error;
+				error = null;
+				throw e;
+			}
+		}
+
+		private void finish() {
+			await();
+
+			synchronized(this) {
+				running = false;
+				notifyAll();
+			}
+
+			boolean interrupted = false;
+
+			while(isAlive()) {
+				try {
+					join();
+				} catch(InterruptedException e) {
+					interrupted = true;
+				}
+			}
+
+			if(interrupted) Thread.currentThread().interrupt();
+		}
+
+		public void run() {
+			while(true) {
+				Consumer<BufferedImage> frame;
+
+				synchronized(this) {
+					while(running && !busy) {
+						try {
+							wait();
+						} catch(InterruptedException e) {
+							return;
+						}
+					}
+
+					if(!running) return;
+					frame = present;
+				}
+
+				RuntimeException failure = null;
+				try {
+					pending = draw(pending, true);
+					if(frame != null && (!dirtyTracking || !dirty.isEmpty())) frame.accept(image);
+				} catch(RuntimeException e) {
+					failure = e;
+				} catch(Throwable t) {
+					failure = new RuntimeException("Render thread failed: " + t.getMessage(), t);
+				}
+
+				synchronized(this) {
+					error = failure;
+					present = null;
+					busy = false;
+					notifyAll();
+				}
+			}
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,192 @@
+package com.picksel.renderer;
+
+import java.util.Arrays;
+
+import com.picksel.util.VersionInfo;
+
+/**
+ * A Bitmap stored as runs of transparent, opaque and
+ * translucent pixels for each row. The Renderer skips
+ * transparent runs, copies opaque runs and only blends
+ * translucent runs, which makes sprites surrounded by empty
+ * space much cheaper to draw.<br>
+ *
+ * <b>Note:</b> only non-transparent pixels are stored, so
+ * changes to the source Bitmap are not seen by an already
+ * encoded RunLengthBitmap.
+ *
+ * @author Noah James Rathman
+ */
+@VersionInfo(
+	version				= "1.0",
+	releaseDate		= "",
+	since					= "1.0",
+	contributors	= {"Noah J Rathman"}
+)
+public final class RunLengthBitmap {
+	/** Run of pixels with an alpha of {@code 0}. */
+	public static final int RUN_TRANSPARENT = 0;
+
+	/** Run of pixels with an alpha of {@code 255}. */
+	public static final int RUN_OPAQUE = 1;
+
+	/** Run of pixels with any other alpha. */
+	public static final int RUN_TRANSLUCENT = 2;
+
+	private static final int TYPE_SHIFT = 30;
+	private static final int LENGTH_MASK = (1 << TYPE_SHIFT) - 1;
+
+	/**
+	 * Gets the type of the passed packed run.
+	 *
+	 * @param run Packed run
+	 * @return Run type
+	 */
+	public static int runType(int run) {
+		return run >>> TYPE_SHIFT;
+	}
+
+	/**
+	 * Gets the length in pixels of the passed packed run.
+	 *
+	 * @param run Packed run
+	 * @return Run length
+	 */
+	public static int runLength(int run) {
+		return run & LENGTH_MASK;
+	}
+
+	private static int pixelType(int argb) {
+		int a = argb >>> 24;
+		return a == 0 ? RUN_TRANSPARENT : a == 255 ? RUN_OPAQUE : RUN_TRANSLUCENT;
+	}
+
+	/**
+	 * Encodes the passed Bitmap into runs. Transparent runs at
+	 * the end of a row are dropped.
+	 *
+	 * @param bitmap Bitmap being encoded
+	 * @return Encoded RunLengthBitmap
+	 */
+	public static RunLengthBitmap encode(Bitmap bitmap) {
+		int w = bitmap.getWidth();
+		int h = bitmap.getHeight();
+		int[] src = bitmap.getPixels();
+
+		int[] runs = new int[h + 1];
+		int[] data = new int[w * h];
+		int[] rowRuns = new int[h + 1];
+		int[] rowData = new int[h + 1];
+		int runCount = 0, dataCount = 0;
+
+		for(int y = 0; y < h; y++) {
+			int row = bitmap.getOffset() + y * bitmap.getStride();
+			rowRuns[y] = runCount;
+			rowData[y] = dataCount;
+
+			int x = 0;
+			while(x < w) {
+				int type = pixelType(src[row + x]);
+				int start = x;
+
+				while(x < w && pixelType(src[row + x]) == type) x++;
+				if(type == RUN_TRANSPARENT && x == w) break;
+
+				if(runCount == runs.length) runs = Arrays.copyOf(runs, runs.length * 2);
+				runs[runCount++] = (type << TYPE_SHIFT) | (x - start);
+
+				if(type != RUN_TRANSPARENT) {
+					System.arraycopy(src, row + start, data, dataCount, x - start);
+					dataCount += x - start;
+				}
+			}
+		}
+
+		rowRuns[h] = runCount;
+		rowData[h] = dataCount;
+
+		return new RunLengthBitmap(
+			bitmap, Arrays.copyOf(runs, runCount), Arrays.copyOf(data, dataCount), rowRuns, rowData
+		);
+	}
+
+	//Class
+	private final Bitmap source;
+	private final int[] runs, data, rowRuns, rowData;
+
+	private RunLengthBitmap(Bitmap source, int[] runs, int[] data, int[] rowRuns, int[] rowData) {
+		this.source = source;
+		this.runs = runs;
+		this.data = data;
+		this.rowRuns = rowRuns;
+		this.rowData = rowData;
+	}
+
+	/**
+	 * Gets the Bitmap this RunLengthBitmap was encoded from.
+	 *
+	 * @return Source Bitmap
+	 */
+	public Bitmap getSource() {
+		return source;
+	}
+
+	/**
+	 * Gets every packed run of this RunLengthBitmap. See
+	 * {@link #runType(int)} and {@link #runLength(int)}.
+	 *
+	 * @return Packed runs of all rows
+	 */
+	public int[] getRuns() {
+		return runs;
+	}
+
+	/**
+	 * Gets the pixels of every non-transparent run, in the
+	 * order the runs appear.
+	 *
+	 * @return Packed ARGB run pixels
+	 */
+	public int[] getData() {
+		return data;
+	}
+
+	/**
+	 * Gets the index of the first run of the passed row. The runs
+	 * of row {@code y} end at {@code getRowRunStart(y + 1)}.
+	 *
+	 * @param y Row index
+	 * @return Index into {@link #getRuns()}
+	 */
+	public int getRowRunStart(int y) {
+		return rowRuns[y];
+	}
+
+	/**
+	 * Gets the index of the first pixel of the passed row.
+	 *
+	 * @param y Row index
+	 * @return Index into {@link #getData()}
+	 */
+	public int getRowDataStart(int y) {
+		return rowData[y];
+	}
+
+	/**
+	 * Gets the width of this RunLengthBitmap.
+	 *
+	 * @return Horizontal size
+	 */
+	public int getWidth() {
+		return source.getWidth();
+	}
+
+	/**
+	 * Gets the height of this RunLengthBitmap.
+	 *
+	 * @return Vertical size
+	 */
+	public int getHeight() {
+		return source.getHeight();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,108 @@
+package com.picksel.renderer;
+
+import java.util.Arrays;
+
+/**
+ * Image of a run of draw commands which rarely change, such
+ * as a HUD or background. The commands are drawn into the
+ * layer once, over transparent black, and the layer is then
+ * composited onto the screen with one blit per frame. The
+ * layer also keeps the coverage of each pixel, so compositing
+ * gives the same colors as drawing each command, give or take
+ * rounding on translucent pixels.<br>
+ *
+ * <b>Note:</b> a StaticLayer is never changed once built, so
+ * a frame still being drawn on the render Thread can keep
+ * using it after a new one replaces it.
+ *
+ * @author Noah James Rathman
+ */
+final class StaticLayer {
+	private final int x, y, width, height;
+	private final int[] pixels;
+	private final byte[] coverage;
+
+	/**
+	 * Builds a new StaticLayer from the passed commands. Every
+	 * command must draw with {@link Blend#SRC_OVER}.
+	 *
+	 * @param commands Commands drawn into the layer
+	 * @param area Left, top, right and bottom edges of the area
+	 * the commands touch (right and bottom are exclusive)
+	 * @param cover Scratch buffer of at least the area's size,
+	 * which the coverage is drawn into
+	 */
+	StaticLayer(DrawList commands, int[] area, int[] cover) {
+		x = area[0];
+		y = area[1];
+		width = area[2] - area[0];
+		height = area[3] - area[1];
+		pixels = new int[width * height];
+		coverage = new byte[width * height];
+
+		commands.executeAll(new Rasterizer(pixels, width, x, y, x, y, area[2], area[3]), Blend.SRC_OVER);
+
+		Arrays.fill(cover, 0, coverage.length, 0);
+		commands.executeAll(new Rasterizer(cover, width, x, y, x, y, area[2], area[3]), Blend.LAYER);
+
+		for(int i = 0; i < coverage.length; i++) {
+			coverage[i] = (byte) (cover[i] >>> 24);
+		}
+	}
+
+	/**
+	 * Gets the horizontal position of this layer on the screen.
+	 *
+	 * @return Layer X position
+	 */
+	int getX() {
+		return x;
+	}
+
+	/**
+	 * Gets the vertical position of this layer on the screen.
+	 *
+	 * @return Layer Y position
+	 */
+	int getY() {
+		return y;
+	}
+
+	/**
+	 * Gets the width of this layer.
+	 *
+	 * @return Horizontal size
+	 */
+	int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Gets the height of this layer.
+	 *
+	 * @return Vertical size
+	 */
+	int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Gets the premultiplied ARGB pixels of this layer, stored
+	 * row-major.
+	 *
+	 * @return Layer pixel array
+	 */
+	int[] getPixels() {
+		return pixels;
+	}
+
+	/**
+	 * Gets the coverage of every pixel in this layer, from
+	 * {@code 0} to {@code 255}, row by row.
+	 *
+	 * @return Layer coverage
+	 */
+	byte[] getCoverage() {
+		return coverage;
+	}
+}
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.picksel.scene;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Collection;
 
 import com.picksel.component.Component;
 import com.picksel.renderer.*;
@@ -80,20 +81,54 @@ public class Scene implements Data {
 		}
 	}
 
+	/**
+	 * Adds every passed Component to this Scene. The Scene's
+	 * RenderQueue is only sorted once, so this is much faster
+	 * than calling {@link #addComponent(Component)} for each
+	 * Component when loading a level.
+	 *
+	 * @param cs New Scene Components
+	 */
+	public void addComponents(Collection<? extends Component> cs) {
+		List<Renderable> rs = new ArrayList<Renderable>(cs.size());
+
+		for(Component c : cs) {
+			components.add(c);
+
+			if(c instanceof Renderable r) {
+				rs.add(r);
+			}
+		}
+
+		renderQueue.addAll(rs);
+	}
+
+	/**
+	 * Gets this Scene's RenderQueue.
+	 *
+	 * @return Scene RenderQueue
+	 */
+	public RenderQueue getRenderQueue() {
+		return renderQueue;
+	}
+
 	/**
 	 * Updates all Components in this Scene, as well as this
-	 * Scene's Camera.
+	 * Scene's Camera. When culling is enabled the RenderQueue is
+	 * also updated so moved Components are re-binned.
 	 *
 	 * @param dt The amount of time in seconds the last frame
 	 * took to finish
 	 * @param in User input found this frame
 	 */
 	public void update(float dt, Input in) {
-		for(Component c : components) {
-			c.update(dt, in);
+		for(int i = 0; i < components.size(); i++) {
+			components.get(i).update(dt, in);
 		}
 
 		camera.update();
+
+		if(renderQueue.getCulling() > 0) renderQueue.update();
 	}
 
 	/**
@@ -0,0 +1,159 @@
+package com.picksel.util;
+
+import java.lang.management.ManagementFactory;
+
+import com.sun.management.ThreadMXBean;
+import com.picksel.util.exception.AllocationException;
+
+/**
+ * Measures how many bytes each phase of a frame allocates,
+ * using the JVM's per-Thread allocation counters. Each phase
+ * is measured on the Thread which calls {@link #begin(int)}
+ * and {@link #end(int)}, so work done on other Threads, such
+ * as a pipelined Renderer's render Thread, isn't counted.<br>
+ *
+ * <b>Note:</b> when a phase has a budget, {@link #end(int)}
+ * throws an {@link AllocationException} if the phase went
+ * over it. Tests can use this to fail on new allocations.
+ *
+ * @author Noah James Rathman
+ */
+@VersionInfo(
+	version				= "1.0",
+	releaseDate		= "",
+	since					= "1.0",
+	contributors	= {"Noah J Rathman"}
+)
+public final class AllocationMonitor {
+	/** Phase which updates the active Scene. */
+	public static final int UPDATE = 0;
+
+	/** Phase which renders the active Scene. */
+	public static final int RENDER = 1;
+
+	private static final int PHASES = 2;
+	private static final String[] NAMES = {"update", "render"};
+
+	//Class
+	private final ThreadMXBean threads;
+	private final long[] start, last, total, budget;
+	private final int[] count;
+
+	/**
+	 * Creates a new AllocationMonitor with no budgets. Throws an
+	 * {@link UnsupportedOperationException} if the JVM can't
+	 * count allocated bytes per Thread.
+	 */
+	public AllocationMonitor() {
+		if(!(ManagementFactory.getThreadMXBean() instanceof ThreadMXBean t) || !t.isThreadAllocatedMemorySupported()) {
+			throw new UnsupportedOperationException("Thread allocation counting is not supported.");
+		}
+
+		threads = t;
+		threads.setThreadAllocatedMemoryEnabled(true);
+
+		start		= new long[PHASES];
+		last		= new long[PHASES];
+		total		= new long[PHASES];
+		budget	= new long[PHASES];
+		count		= new int[PHASES];
+
+		for(int i = 0; i < PHASES; i++) {
+			budget[i] = -1L;
+		}
+	}
+
+	/**
+	 * Starts measuring the passed phase on the calling Thread.
+	 *
+	 * @param phase Measured phase
+	 */
+	public void begin(int phase) {
+		start[phase] = threads.getCurrentThreadAllocatedBytes();
+	}
+
+	/**
+	 * Stops measuring the passed phase on the calling Thread.
+	 *
+	 * @param phase Measured phase
+	 */
+	public void end(int phase) {
+		long bytes = threads.getCurrentThreadAllocatedBytes() - start[phase];
+
+		last[phase] = bytes;
+		total[phase] += bytes;
+		count[phase]++;
+
+		if(budget[phase] >= 0 && bytes > budget[phase]) {
+			throw new AllocationException("The " + NAMES[phase] + " phase allocated " + bytes +
+																		" bytes, over its budget of " + budget[phase] + ".");
+		}
+	}
+
+	/**
+	 * Sets the most bytes the passed phase may allocate each
+	 * frame.
+	 *
+	 * @param phase Target phase
+	 * @param bytes Phase budget in bytes, or {@code -1} for no
+	 * budget
+	 */
+	public void setBudget(int phase, long bytes) {
+		budget[phase] = bytes;
+	}
+
+	/**
+	 * Gets the budget of the passed phase.
+	 *
+	 * @param phase Target phase
+	 * @return Phase budget in bytes, or {@code -1} if the phase
+	 * has no budget
+	 */
+	public long getBudget(int phase) {
+		return budget[phase];
+	}
+
+	/**
+	 * Gets how many bytes the passed phase allocated the last
+	 * time it was measured.
+	 *
+	 * @param phase Target phase
+	 * @return Allocated bytes
+	 */
+	public long getLastBytes(int phase) {
+		return last[phase];
+	}
+
+	/**
+	 * Gets how many bytes the passed phase allocated since this
+	 * monitor was created or reset.
+	 *
+	 * @param phase Target phase
+	 * @return Allocated bytes
+	 */
+	public long getTotalBytes(int phase) {
+		return total[phase];
+	}
+
+	/**
+	 * Gets how many bytes the passed phase allocates on average
+	 * each time it's measured.
+	 *
+	 * @param phase Target phase
+	 * @return Average allocated bytes
+	 */
+	public long getAverageBytes(int phase) {
+		return count[phase] == 0 ? 0L : total[phase] / count[phase];
+	}
+
+	/**
+	 * Clears every measurement. Budgets are kept.
+	 */
+	public void reset() {
+		for(int i = 0; i < PHASES; i++) {
+			last[i] = 0L;
+			total[i] = 0L;
+			count[i] = 0;
+		}
+	}
+}
\ No newline at end of file
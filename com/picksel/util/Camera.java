@@ -11,6 +11,12 @@ import com.picksel.component.Component;
 public final class Camera {
 	private static int SCREEN_WIDTH, SCREEN_HEIGHT;
 
+	/**
+	 * Shared Camera which never moves. Used to draw Renderables
+	 * with no Camera offset, and can't be given a focus.
+	 */
+	public static final Camera NO_OFFSET = new Camera();
+
 	/**
 	 * Initializes the Camera with the passed screen
 	 * width and height.
@@ -56,6 +62,8 @@ public final class Camera {
 	 * @param focus New Camera focus
 	 */
 	public void setFocus(Component focus) {
+		if(this == NO_OFFSET) throw new UnsupportedOperationException("The NO_OFFSET Camera can't have a focus.");
+
 		this.focus = focus;
 	}
 
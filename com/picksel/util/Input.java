@@ -14,7 +14,8 @@ public final class Input implements KeyListener, MouseListener, MouseMotionListe
 	public static final int BTN_SIZE = 6;
 
 	//Class
-	private final float SCALE;
+	private float scale;
+	private int xOff, yOff;
 	private boolean[] keys, keysLast, btns, btnsLast;
 	private int mX, mY, mXL, mYL, dX, dY, scroll;
 	private boolean dragging;
@@ -25,7 +26,9 @@ public final class Input implements KeyListener, MouseListener, MouseMotionListe
 	 * @param scale Scale of screen
 	 */
 	public Input(float scale) {
-		SCALE = scale;
+		this.scale = scale;
+		xOff = 0;
+		yOff = 0;
 
 		keys			= new boolean[KEY_SIZE];
 		keysLast	= new boolean[KEY_SIZE];
@@ -61,6 +64,20 @@ public final class Input implements KeyListener, MouseListener, MouseMotionListe
 		dY				= 0;
 	}
 
+	/**
+	 * Sets where the game screen sits inside the window, so
+	 * mouse positions map to game pixels.
+	 *
+	 * @param xOff Horizontal offset of the screen in the window
+	 * @param yOff Vertical offset of the screen in the window
+	 * @param scale Scale of screen
+	 */
+	public void setView(int xOff, int yOff, float scale) {
+		this.xOff = xOff;
+		this.yOff = yOff;
+		this.scale = scale;
+	}
+
 	//Input Controls
 
 	/**
@@ -164,8 +181,8 @@ public final class Input implements KeyListener, MouseListener, MouseMotionListe
 
 	//Motion Input
 	public void mouseMoved(MouseEvent e) {
-		mX = (int) (e.getX() / SCALE);
-		mY = (int) (e.getY() / SCALE);
+		mX = (int) Math.floor((e.getX() - xOff) / scale);
+		mY = (int) Math.floor((e.getY() - yOff) / scale);
 
 		dX = mX - mXL;
 		dY = mY - mYL;
@@ -174,8 +191,8 @@ public final class Input implements KeyListener, MouseListener, MouseMotionListe
 	}
 
 	public void mouseDragged(MouseEvent e) {
-		mX = (int) (e.getX() / SCALE);
-		mY = (int) (e.getY() / SCALE);
+		mX = (int) Math.floor((e.getX() - xOff) / scale);
+		mY = (int) Math.floor((e.getY() - yOff) / scale);
 
 		dX = mX - mXL;
 		dY = mY - mYL;
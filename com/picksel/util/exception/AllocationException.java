@@ -0,0 +1,20 @@
+package com.picksel.util.exception;
+
+/**
+ * Exception thrown when a frame phase allocates more memory
+ * than its budget allows.
+ *
+ * @author Noah James Rathman
+ */
+public final class AllocationException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Creates a new AllocationException with the passed message.
+	 *
+	 * @param message Message displayed with Exception
+	 */
+	public AllocationException(String message) {
+		super(message);
+	}
+}
\ No newline at end of file